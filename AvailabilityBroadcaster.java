@@ -0,0 +1,249 @@
+package com.restaurant.api;
+
+import com.restaurant.database.DatabaseManager;
+import com.restaurant.database.ReservationListener;
+import com.restaurant.database.Settings;
+import com.restaurant.database.TurnTimes;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.TableStatus;
+import com.restaurant.model.TimeSlot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes availability changes to subscribed clients over Server-Sent Events
+ * Subscribers are grouped by (date, party size, granularity). Reservation and
+ * table events only mark the affected dates dirty; a single flush shortly
+ * afterwards recomputes each dirty subscription once from the availability
+ * index and sends just the slots that changed to every subscriber of it.
+ */
+@Component
+public class AvailabilityBroadcaster implements ReservationListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityBroadcaster.class);
+
+    private final DatabaseManager dbManager;
+    private final long debounceMillis;
+    private final long emitterTimeoutMillis;
+
+    private final Map<Subscription, Topic> topics = new ConcurrentHashMap<>();
+    private final Set<LocalDate> dirtyDates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirtyAll = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    public AvailabilityBroadcaster(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.debounceMillis = Settings.getLong("restaurant.sse.debounceMs", 200);
+        this.emitterTimeoutMillis = Settings.getLong("restaurant.sse.timeoutMs", 30 * 60 * 1000L);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dbManager.addListener(this);
+    }
+
+    /**
+     * Register a subscriber; it receives a "snapshot" event with every slot,
+     * then "update" events carrying only the slots whose availability changed
+     */
+    public SseEmitter subscribe(LocalDate date, int partySize, int granularity)
+            throws Exception {
+        Subscription key = new Subscription(date, partySize, granularity);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+
+        try {
+            while (true) {
+                Topic topic = topics.computeIfAbsent(key, k -> new Topic());
+                topic.lock.lock();
+                try {
+                    // Lost a race with the last subscriber leaving; start a new topic
+                    if (topic.closed) continue;
+                    if (topic.slots == null) {
+                        topic.slots = compute(key);
+                    }
+                    topic.emitters.add(emitter);
+                    emitter.send(SseEmitter.event().name("snapshot").data(topic.slots));
+                    break;
+                } finally {
+                    topic.lock.unlock();
+                }
+            }
+        } catch (Exception e) {
+            remove(key, emitter);
+            throw e;
+        }
+
+        emitter.onCompletion(() -> remove(key, emitter));
+        emitter.onTimeout(() -> remove(key, emitter));
+        emitter.onError(e -> remove(key, emitter));
+        return emitter;
+    }
+
+    // ==========================================
+    // RESERVATION EVENTS
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        markDirty(reservation.getReservationTime());
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        markDirty(before.getReservationTime());
+        markDirty(after.getReservationTime());
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        markDirty(before.getReservationTime());
+    }
+
+    @Override
+    public void tableStatusChanged(int tableId, TableStatus status) {
+        dirtyAll.set(true);
+        scheduleFlush();
+    }
+
+    /**
+     * A booking holds its table for its turn and blocks slots up to the
+     * longest turn before it, which can reach into the neighbouring day
+     */
+    private void markDirty(LocalDateTime time) {
+        if (topics.isEmpty()) return;
+        dirtyDates.add(time.toLocalDate());
+        dirtyDates.add(time.minusMinutes(TurnTimes.MAX_TURN_MINUTES).toLocalDate());
+        dirtyDates.add(time.plusMinutes(TurnTimes.MAX_TURN_MINUTES).toLocalDate());
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ==========================================
+    // FAN-OUT
+    // ==========================================
+
+    private void flush() {
+        // Changes arriving from here on schedule the next flush
+        flushScheduled.set(false);
+        boolean all = dirtyAll.getAndSet(false);
+        Set<LocalDate> dates = new HashSet<>(dirtyDates);
+        dirtyDates.removeAll(dates);
+
+        for (Map.Entry<Subscription, Topic> entry : topics.entrySet()) {
+            if (!all && !dates.contains(entry.getKey().date())) continue;
+            try {
+                publish(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn("Availability push failed for {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Recompute once, diff against the last pushed slots, send the changes
+     */
+    private void publish(Subscription key, Topic topic) throws Exception {
+        List<SseEmitter> gone = new ArrayList<>();
+        topic.lock.lock();
+        try {
+            List<TimeSlot> current = compute(key);
+            List<TimeSlot> changed = diff(topic.slots, current);
+            topic.slots = current;
+            if (changed.isEmpty()) return;
+
+            for (SseEmitter emitter : topic.emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name("update").data(changed));
+                } catch (IOException | IllegalStateException e) {
+                    gone.add(emitter);
+                }
+            }
+        } finally {
+            topic.lock.unlock();
+        }
+        // Outside the topic lock: completion calls back into remove()
+        for (SseEmitter emitter : gone) {
+            remove(key, emitter);
+            emitter.complete();
+        }
+    }
+
+    private List<TimeSlot> compute(Subscription key) throws Exception {
+        return dbManager.getAvailableTimeSlots(
+            key.date().toString(), key.partySize(), key.granularity());
+    }
+
+    private static List<TimeSlot> diff(List<TimeSlot> previous, List<TimeSlot> current) {
+        List<TimeSlot> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            TimeSlot slot = current.get(i);
+            TimeSlot old = previous != null && i < previous.size() ? previous.get(i) : null;
+            if (old == null || old.isAvailable() != slot.isAvailable()
+                    || old.getTableNumber() != slot.getTableNumber()) {
+                changed.add(slot);
+            }
+        }
+        return changed;
+    }
+
+    private void remove(Subscription key, SseEmitter emitter) {
+        topics.computeIfPresent(key, (k, topic) -> {
+            topic.lock.lock();
+            try {
+                topic.emitters.remove(emitter);
+                topic.closed = topic.emitters.isEmpty();
+                return topic.closed ? null : topic;
+            } finally {
+                topic.lock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        for (Topic topic : topics.values()) {
+            topic.emitters.forEach(SseEmitter::complete);
+        }
+        topics.clear();
+    }
+
+    // ==========================================
+    // SUBSCRIPTIONS
+    // ==========================================
+
+    private record Subscription(LocalDate date, int partySize, int granularity) {}
+
+    private static final class Topic {
+        final ReentrantLock lock = new ReentrantLock();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        List<TimeSlot> slots;
+        boolean closed;
+    }
+}
@@ -0,0 +1,443 @@
+package com.restaurant.database;
+
+import com.restaurant.database.SeatingOptimizer.Seating;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationStatus;
+import com.restaurant.model.Table;
+import com.restaurant.model.TableLocation;
+import com.restaurant.model.TableStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory table availability index
+ * Holds every table, the table joins, the turn-time rules and the CONFIRMED
+ * reservations from the start of the load window onwards, so "best free
+ * seating for N at time T" is answered by the SeatingOptimizer without a
+ * database round trip.
+ * The database stays the source of truth; the index follows DatabaseManager
+ * writes as a ReservationListener. The first change of each day moves the
+ * window to that day and drops the bookings before it.
+ */
+public class AvailabilityIndex implements ReservationListener {
+
+    private static final Comparator<Table> SMALLEST_FIRST =
+        Comparator.comparingInt(Table::getCapacity).thenComparingInt(Table::getTableId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private List<Table> tables = new ArrayList<>();
+    private TurnTimes turnTimes = TurnTimes.defaults();
+    private SeatingOptimizer optimizer = new SeatingOptimizer(List.of(), List.of(), turnTimes);
+    private ReservationStore bookings = new ReservationStore();
+    private LocalDateTime windowStart;
+    // Day the window was last moved to; earlier bookings are pruned as days pass
+    private LocalDate prunedThrough;
+    // Changes seen while a load reads the database, replayed onto its store;
+    // null when no load is running
+    private List<Change> loadChanges;
+
+    /**
+     * A booking (tableIds set) or a release (tableIds null)
+     */
+    private record Change(int reservationId, int[] tableIds, int startMinute, int endMinute) {}
+
+    /**
+     * Start recording changes for the next load()
+     * Call before reading the bookings to load, so that changes committed
+     * while they are read are not lost when the store is replaced
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loadChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop recording changes; a no-op once load() has run
+     */
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            loadChanges = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the index contents with a fresh load from the database
+     * The confirmed bookings must start TurnTimes.MAX_TURN_MINUTES before
+     * windowStart so that bookings late on the previous evening still block
+     * early slots; the index takes ownership of the store
+     */
+    public void load(List<Table> allTables, List<int[]> joins, TurnTimes turnTimes,
+                     ReservationStore confirmed, LocalDateTime windowStart) {
+        lock.writeLock().lock();
+        try {
+            List<Table> sorted = new ArrayList<>(allTables);
+            sorted.sort(SMALLEST_FIRST);
+            this.tables = sorted;
+            this.turnTimes = turnTimes;
+            this.optimizer = new SeatingOptimizer(sorted, joins, turnTimes);
+            if (loadChanges != null) {
+                // Replaying a change the load already read leaves the same booking
+                for (Change change : loadChanges) {
+                    apply(confirmed, change);
+                }
+                loadChanges = null;
+            }
+            this.bookings = confirmed;
+            this.windowStart = windowStart;
+            this.prunedThrough = windowStart.toLocalDate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return windowStart != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Turn-time rules of the last load; defaults until then
+     */
+    public TurnTimes getTurnTimes() {
+        lock.readLock().lock();
+        try {
+            return turnTimes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * True when every booking that could conflict with the given time is held
+     */
+    public boolean covers(LocalDateTime time) {
+        lock.readLock().lock();
+        try {
+            return windowStart != null && !time.isBefore(windowStart);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Primary table of the best seating for the party, or null when none is
+     * free; a large party may be seated on it joined with its neighbours
+     */
+    public Table findAvailableTable(int partySize, LocalDateTime time, int excludeReservationId) {
+        lock.readLock().lock();
+        try {
+            Seating seating = optimizer.best(partySize, null,
+                ReservationStore.toEpochMinute(time), bookings, excludeReservationId);
+            return seating != null ? copyOf(tableById(seating.primaryTableId())) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every free seating for the party, best first, so a booking can fall
+     * through to the next one if its claim loses a race
+     */
+    public List<Seating> findSeatings(int partySize, TableLocation preferred, LocalDateTime time,
+            int excludeReservationId) {
+        lock.readLock().lock();
+        try {
+            return optimizer.rank(partySize, preferred, ReservationStore.toEpochMinute(time),
+                bookings, excludeReservationId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Assign seatings to a batch of requests against one snapshot of the index
+     * Requests are placed in order, each on its best seating, and each
+     * placement blocks its tables for the requests after it
+     * @return seating per request, or null when nothing is free (or the time
+     *         is outside the index window)
+     */
+    public Seating[] allocate(List<Reservation> requests) {
+        // Placements are held in the index under temporary negative ids
+        // until the batch is done, so this takes the write lock
+        lock.writeLock().lock();
+        try {
+            advanceWindow();
+            Seating[] seatings = new Seating[requests.size()];
+            try {
+                for (int i = 0; i < requests.size(); i++) {
+                    Reservation request = requests.get(i);
+                    LocalDateTime time = request.getReservationTime();
+                    if (windowStart == null || time.isBefore(windowStart)) continue;
+
+                    int minute = ReservationStore.toEpochMinute(time);
+                    seatings[i] = optimizer.best(request.getPartySize(), null, minute, bookings, 0);
+                    if (seatings[i] != null) {
+                        bookings.put(-(i + 1), seatings[i].tableIds(), minute,
+                            turnTimes.endMinute(request.getPartySize(), minute));
+                    }
+                }
+            } finally {
+                for (int i = 0; i < seatings.length; i++) {
+                    if (seatings[i] != null) bookings.remove(-(i + 1));
+                }
+            }
+            return seatings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * True when none of the tables has a CONFIRMED booking overlapping [start, end)
+     */
+    public boolean isFree(int[] tableIds, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            int startMinute = ReservationStore.toEpochMinute(start);
+            int endMinute = ReservationStore.toEpochMinute(end);
+            for (int tableId : tableIds) {
+                if (bookings.isBooked(tableId, startMinute, endMinute, -1)) return false;
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot one day's tables and nearby bookings for a single-pass slot sweep
+     */
+    public DaySchedule daySchedule(LocalDate date) {
+        return daySchedules(date, date).get(0);
+    }
+
+    /**
+     * Snapshot every day from first to last inclusive in one pass over the
+     * bookings; a booking is added to its own day and the neighbouring days
+     * its turn can reach
+     */
+    public List<DaySchedule> daySchedules(LocalDate first, LocalDate last) {
+        lock.readLock().lock();
+        try {
+            List<Table> snapshot = copyOfTables();
+            List<int[]> combinations = optimizer.getCombinations();
+            List<DaySchedule> schedules = new ArrayList<>();
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                schedules.add(new DaySchedule(date, snapshot, combinations, turnTimes));
+            }
+            int firstStart = ReservationStore.toEpochMinute(first.atStartOfDay());
+            bookings.forEachBetween(firstStart - TurnTimes.MAX_TURN_MINUTES,
+                firstStart + schedules.size() * 24 * 60 + TurnTimes.MAX_TURN_MINUTES,
+                (reservationId, tableId, startMinute, endMinute) -> {
+                    int day = Math.floorDiv(startMinute - firstStart, 24 * 60);
+                    int to = Math.min(day + 1, schedules.size() - 1);
+                    for (int i = Math.max(day - 1, 0); i <= to; i++) {
+                        int dayStart = firstStart + i * 24 * 60;
+                        schedules.get(i).addBooking(tableId, startMinute - dayStart,
+                            endMinute - dayStart);
+                    }
+                });
+            return schedules;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The day's tables and joinable combinations without any bookings
+     */
+    public DaySchedule emptySchedule(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            return new DaySchedule(date, copyOfTables(), optimizer.getCombinations(), turnTimes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every held booking as (reservation id, table id, start minute, end
+     * minute) quads, one per booked table, for a journal snapshot
+     */
+    public int[] exportBookings() {
+        lock.readLock().lock();
+        try {
+            int[] rows = new int[4 * bookings.size()];
+            int[] next = new int[1];
+            bookings.forEachBetween(Integer.MIN_VALUE, Integer.MAX_VALUE,
+                (reservationId, tableId, startMinute, endMinute) -> {
+                    int at = next[0];
+                    rows[at] = reservationId;
+                    rows[at + 1] = tableId;
+                    rows[at + 2] = startMinute;
+                    rows[at + 3] = endMinute;
+                    next[0] = at + 4;
+                });
+            return next[0] == rows.length ? rows : Arrays.copyOf(rows, next[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies of every table known to the index
+     */
+    public List<Table> getTables() {
+        lock.readLock().lock();
+        try {
+            return copyOfTables();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==========================================
+    // EVENTS
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        reservationUpdated(null, reservation);
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        if (after.getStatus() == ReservationStatus.CONFIRMED) {
+            reservationBooked(after.getReservationId(), tableIdsOf(after),
+                after.getReservationTime(), after.getEndTime());
+        } else {
+            reservationReleased(after.getReservationId());
+        }
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        reservationReleased(before.getReservationId());
+    }
+
+    /**
+     * Record (or move) a CONFIRMED booking on one or more joined tables
+     */
+    public void reservationBooked(int reservationId, int[] tableIds, LocalDateTime start,
+                                  LocalDateTime end) {
+        lock.writeLock().lock();
+        try {
+            record(new Change(reservationId, tableIds, ReservationStore.toEpochMinute(start),
+                ReservationStore.toEpochMinute(end)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop a booking that was cancelled or is no longer CONFIRMED
+     */
+    public void reservationReleased(int reservationId) {
+        lock.writeLock().lock();
+        try {
+            record(new Change(reservationId, null, 0, 0));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void tableStatusChanged(int tableId, TableStatus status) {
+        lock.writeLock().lock();
+        try {
+            for (Table table : tables) {
+                if (table.getTableId() == tableId) {
+                    table.setStatus(status);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==========================================
+    // INTERNALS (callers hold the lock)
+    // ==========================================
+
+    private void record(Change change) {
+        advanceWindow();
+        apply(bookings, change);
+        if (loadChanges != null) {
+            loadChanges.add(change);
+        }
+    }
+
+    private static void apply(ReservationStore store, Change change) {
+        if (change.tableIds() != null) {
+            store.put(change.reservationId(), change.tableIds(), change.startMinute(),
+                change.endMinute());
+        } else {
+            store.remove(change.reservationId());
+        }
+    }
+
+    /**
+     * On the first change of a new day, move the window to its start and
+     * drop the bookings that can no longer block a slot in it
+     * Callers hold the write lock.
+     */
+    private void advanceWindow() {
+        LocalDate today = LocalDate.now();
+        if (windowStart == null || today.equals(prunedThrough)) return;
+        windowStart = today.atStartOfDay();
+        bookings.removeBefore(ReservationStore.toEpochMinute(
+            windowStart.minusMinutes(TurnTimes.MAX_TURN_MINUTES)));
+        prunedThrough = today;
+    }
+
+    private Table tableById(int tableId) {
+        for (Table table : tables) {
+            if (table.getTableId() == tableId) return table;
+        }
+        throw new IllegalStateException("Unknown table " + tableId);
+    }
+
+    /**
+     * The reservation's table followed by any tables joined to it
+     */
+    static int[] tableIdsOf(Reservation reservation) {
+        List<Integer> joined = reservation.getJoinedTableIds();
+        int[] tableIds = new int[1 + joined.size()];
+        tableIds[0] = reservation.getTableId();
+        for (int i = 0; i < joined.size(); i++) {
+            tableIds[i + 1] = joined.get(i);
+        }
+        return tableIds;
+    }
+
+    private List<Table> copyOfTables() {
+        List<Table> copies = new ArrayList<>(tables.size());
+        for (Table table : tables) {
+            copies.add(copyOf(table));
+        }
+        return copies;
+    }
+
+    private static Table copyOf(Table table) {
+        return new Table(table.getTableId(), table.getTableNumber(), table.getCapacity(),
+            table.getLocation(), table.getStatus());
+    }
+}
@@ -0,0 +1,173 @@
+package com.restaurant.database;
+
+import com.restaurant.model.TableLocation;
+import com.restaurant.model.TimeSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-day "next available table" search
+ * The window's day schedules are evaluated in parallel on the common
+ * fork-join pool, one task per day, each a single slot sweep. The result is
+ * the limit earliest free slots or, when a preferred time of day is given,
+ * the limit slots closest to it (ties go to the earlier slot). Work stops
+ * early: a day stops sweeping once later slots cannot improve its own
+ * matches, and in earliest order a day that fills the limit by itself
+ * makes every later day unnecessary. Slots already in the past are skipped.
+ */
+public final class AvailabilitySearch {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * @param daysOfWeek days to consider; null for every day
+     * @param earliest   first slot time of day; null for opening
+     * @param latest     last slot time of day; null for the last seating
+     * @param location   only tables in this location; null for any
+     * @param near       preferred time of day; null for earliest first
+     */
+    public record Query(LocalDate fromDate, LocalDate toDate, Set<DayOfWeek> daysOfWeek,
+                        int partySize, LocalTime earliest, LocalTime latest,
+                        TableLocation location, int granularityMinutes, LocalTime near,
+                        int limit) {}
+
+    private AvailabilitySearch() {}
+
+    /**
+     * Best free slots across the schedules, best first
+     * @param schedules one per consecutive day, as the query's date range
+     */
+    public static List<TimeSlot> search(List<DaySchedule> schedules, Query query) {
+        List<DaySchedule> days = new ArrayList<>();
+        for (DaySchedule schedule : schedules) {
+            if (query.daysOfWeek() == null
+                    || query.daysOfWeek().contains(schedule.getDate().getDayOfWeek())) {
+                days.add(schedule);
+            }
+        }
+        if (days.isEmpty() || query.limit() <= 0) return List.of();
+
+        AtomicInteger filledDay = new AtomicInteger(Integer.MAX_VALUE);
+        List<Match> matches = new ArrayList<>(ForkJoinPool.commonPool()
+            .invoke(new DayTask(days, 0, days.size(), query, LocalDateTime.now(), filledDay)));
+        matches.sort(order(query));
+
+        List<TimeSlot> slots = new ArrayList<>(Math.min(matches.size(), query.limit()));
+        for (Match match : matches) {
+            if (slots.size() == query.limit()) break;
+            slots.add(new TimeSlot(days.get(match.day()).getDate().atStartOfDay()
+                .plusMinutes(match.minute()), true, match.tableNumber()));
+        }
+        return slots;
+    }
+
+    /**
+     * A free slot; day indexes the filtered schedules, minute is from midnight
+     */
+    private record Match(int day, int minute, int tableNumber, int distance) {}
+
+    private static Comparator<Match> order(Query query) {
+        Comparator<Match> earliest = Comparator.comparingInt(Match::day)
+            .thenComparingInt(Match::minute);
+        return query.near() == null ? earliest
+            : Comparator.comparingInt(Match::distance).thenComparing(earliest);
+    }
+
+    /**
+     * Evaluates days [from, to) by splitting in halves; the current thread
+     * keeps the earlier half so early days, which matter most, finish first
+     */
+    private static final class DayTask extends RecursiveTask<List<Match>> {
+        // Serializable only through ForkJoinTask; never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final List<DaySchedule> days;
+        private final int from;
+        private final int to;
+        private final Query query;
+        private final LocalDateTime now;
+        // Lowest day that alone holds limit matches (earliest order only)
+        private final AtomicInteger filledDay;
+
+        DayTask(List<DaySchedule> days, int from, int to, Query query, LocalDateTime now,
+                AtomicInteger filledDay) {
+            this.days = days;
+            this.from = from;
+            this.to = to;
+            this.query = query;
+            this.now = now;
+            this.filledDay = filledDay;
+        }
+
+        @Override
+        protected List<Match> compute() {
+            if (to - from == 1) {
+                return evaluate(from);
+            }
+            int mid = (from + to) >>> 1;
+            DayTask later = new DayTask(days, mid, to, query, now, filledDay);
+            later.fork();
+            List<Match> matches = new ArrayList<>(
+                new DayTask(days, from, mid, query, now, filledDay).compute());
+            matches.addAll(later.join());
+            return matches;
+        }
+
+        private List<Match> evaluate(int day) {
+            LocalDate date = days.get(day).getDate();
+            if (day > filledDay.get() || date.isBefore(now.toLocalDate())) return List.of();
+
+            int fromMinute = query.earliest() != null ? minuteOf(query.earliest()) : 0;
+            int toMinute = query.latest() != null ? minuteOf(query.latest()) : MINUTES_PER_DAY;
+            if (date.equals(now.toLocalDate())) {
+                fromMinute = Math.max(fromMinute, minuteOf(now.toLocalTime()) + 1);
+            }
+            int limit = query.limit();
+
+            if (query.near() == null) {
+                List<Match> found = new ArrayList<>();
+                days.get(day).forEachFreeSlot(query.partySize(), query.granularityMinutes(),
+                    fromMinute, toMinute, query.location(), (minute, tableNumber) -> {
+                        found.add(new Match(day, minute, tableNumber, 0));
+                        return found.size() < limit && day <= filledDay.get();
+                    });
+                if (found.size() == limit) {
+                    filledDay.accumulateAndGet(day, Math::min);
+                }
+                return found;
+            }
+
+            // The day's limit closest slots, worst on top
+            int near = minuteOf(query.near());
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, order(query).reversed());
+            days.get(day).forEachFreeSlot(query.partySize(), query.granularityMinutes(),
+                fromMinute, toMinute, query.location(), (minute, tableNumber) -> {
+                    int distance = Math.abs(minute - near);
+                    // Past the preferred time every later slot is further away
+                    if (best.size() == limit && minute > near
+                            && distance >= best.peek().distance()) {
+                        return false;
+                    }
+                    best.add(new Match(day, minute, tableNumber, distance));
+                    if (best.size() > limit) best.poll();
+                    return true;
+                });
+            return new ArrayList<>(best);
+        }
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
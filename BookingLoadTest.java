@@ -0,0 +1,112 @@
+package com.restaurant.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking load test for Restaurant Reservation System
+ * Fires POST /api/reservations from a fixed number of concurrent clients
+ * against a running server and reports latency percentiles and the highest
+ * number of bookings in flight at once.
+ *
+ * Usage: BookingLoadTest [baseUrl] [concurrency] [requests] [customerCount]
+ */
+public class BookingLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int customerCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        URI uri = URI.create(baseUrl + "/api/reservations");
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            long seed = c;
+            workers.add(clients.submit(() -> {
+                Random random = new Random(seed);
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                            randomBooking(random, customerCount)))
+                        .build();
+
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response =
+                            client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 201) {
+                            booked.incrementAndGet();
+                        } else if (response.statusCode() >= 500) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[i] = System.nanoTime() - sent;
+                        inFlight.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("requests=%d concurrency=%d booked=%d errors=%d%n",
+            requests, concurrency, booked.get(), errors.get());
+        System.out.printf("throughput=%.1f req/s%n", requests / (elapsed / 1e9));
+        System.out.printf("p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+            percentile(latencies, 50), percentile(latencies, 99),
+            latencies[latencies.length - 1] / 1e6);
+        System.out.printf("max in-flight bookings=%d%n", maxInFlight.get());
+    }
+
+    private static String randomBooking(Random random, int customerCount) {
+        LocalDateTime time = LocalDate.now()
+            .plusDays(1 + random.nextInt(60))
+            .atTime(9 + random.nextInt(12), 15 * random.nextInt(4));
+        return String.format(
+            "{\"customerId\":%d,\"reservationTime\":\"%s\",\"partySize\":%d}",
+            1 + random.nextInt(customerCount), time, 1 + random.nextInt(6));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
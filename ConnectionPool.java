@@ -0,0 +1,227 @@
+package com.restaurant.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection Pool for Restaurant Reservation System
+ * Every DatabaseManager call borrows its own connection from a HikariCP
+ * pool, so request threads no longer serialize on a single MySQL socket
+ * and broken connections are replaced instead of killing the service.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final String DEFAULT_URL =
+        "jdbc:mysql://localhost:3306/restaurant_db?useCursorFetch=true&rewriteBatchedStatements=true";
+    private static final String DEFAULT_USER = "root";
+    private static final String DEFAULT_PASSWORD = "password";
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private final long slowStatementNanos;
+    private final LatencyHistogram acquireLatency =
+        Metrics.registry().histogram(Metrics.DB_ACQUIRE, null, null);
+
+    // Acquire metrics (HikariCP only exposes point-in-time gauges)
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minIdle, int maxSize,
+                          long acquireTimeoutMs, long leakDetectionMs) {
+        this("restaurant-db", url, user, password, minIdle, maxSize, acquireTimeoutMs,
+            leakDetectionMs);
+    }
+
+    public ConnectionPool(String poolName, String url, String user, String password,
+                          int minIdle, int maxSize,
+                          long acquireTimeoutMs, long leakDetectionMs) {
+        this.name = poolName;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        // Driver is resolved from the URL (MySQL in production, H2 for benchmarks)
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMinimumIdle(minIdle);
+        config.setMaximumPoolSize(maxSize);
+        config.setConnectionTimeout(acquireTimeoutMs);
+        config.setValidationTimeout(Math.min(acquireTimeoutMs, 5000));
+        config.setLeakDetectionThreshold(leakDetectionMs);
+        // Start even if MySQL is down; connections are created once it is reachable
+        config.setInitializationFailTimeout(-1);
+        if (url.startsWith("jdbc:mysql:")) {
+            // Server-side prepared statements, cached per connection, so the
+            // constant SQL in DatabaseManager is parsed once per connection
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize",
+                Settings.get("restaurant.db.prepStmtCacheSize", "250"));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("cacheResultSetMetadata", "true");
+        }
+
+        this.dataSource = new HikariDataSource(config);
+        this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(
+            Settings.getLong("restaurant.metrics.slowQueryMs", 200));
+    }
+
+    /**
+     * Build a pool from system properties / environment variables,
+     * falling back to the local development defaults
+     */
+    public static ConnectionPool fromEnvironment() {
+        return new ConnectionPool(
+            Settings.get("restaurant.db.url", DEFAULT_URL),
+            Settings.get("restaurant.db.user", DEFAULT_USER),
+            Settings.get("restaurant.db.password", DEFAULT_PASSWORD),
+            Settings.getInt("restaurant.db.pool.minIdle", 2),
+            Settings.getInt("restaurant.db.pool.maxSize", 20),
+            Settings.getLong("restaurant.db.pool.acquireTimeoutMs", 3000),
+            Settings.getLong("restaurant.db.pool.leakDetectionMs", 10000)
+        );
+    }
+
+    /**
+     * One pool per URL in restaurant.db.replicas (comma separated); empty
+     * when no replicas are configured. Credentials and sizes default to the
+     * primary's unless restaurant.db.replica.* overrides them
+     */
+    public static List<ConnectionPool> replicasFromEnvironment() {
+        List<ConnectionPool> replicas = new ArrayList<>();
+        for (String url : Settings.get("restaurant.db.replicas", "").split(",")) {
+            if (url.isBlank()) continue;
+            replicas.add(new ConnectionPool(
+                "restaurant-db-replica-" + (replicas.size() + 1),
+                url.trim(),
+                Settings.get("restaurant.db.replica.user",
+                    Settings.get("restaurant.db.user", DEFAULT_USER)),
+                Settings.get("restaurant.db.replica.password",
+                    Settings.get("restaurant.db.password", DEFAULT_PASSWORD)),
+                Settings.getInt("restaurant.db.replica.pool.minIdle",
+                    Settings.getInt("restaurant.db.pool.minIdle", 2)),
+                Settings.getInt("restaurant.db.replica.pool.maxSize",
+                    Settings.getInt("restaurant.db.pool.maxSize", 20)),
+                Settings.getLong("restaurant.db.pool.acquireTimeoutMs", 3000),
+                Settings.getLong("restaurant.db.pool.leakDetectionMs", 10000)
+            ));
+        }
+        return replicas;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Borrow a connection; callers must close it to return it to the pool
+     * Statements run on it are timed and slow ones logged (see StatementTimer)
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = dataSource.getConnection();
+            acquisitions.increment();
+            return StatementTimer.wrap(connection, slowStatementNanos);
+        } catch (SQLTransientConnectionException e) {
+            acquireTimeouts.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            acquireNanos.add(elapsed);
+            acquireLatency.recordNanos(elapsed);
+            maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    public PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            stats.setActiveConnections(pool.getActiveConnections());
+            stats.setIdleConnections(pool.getIdleConnections());
+            stats.setTotalConnections(pool.getTotalConnections());
+            stats.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
+        }
+        long count = acquisitions.sum();
+        stats.setAcquisitions(count);
+        stats.setAcquireTimeouts(acquireTimeouts.sum());
+        stats.setAverageAcquireMillis(count == 0 ? 0.0 :
+            acquireNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1));
+        stats.setMaxAcquireMillis(maxAcquireNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    // ==========================================
+    // POOL STATISTICS
+    // ==========================================
+
+    public static class PoolStats {
+        private int activeConnections;
+        private int idleConnections;
+        private int totalConnections;
+        private int threadsAwaitingConnection;
+        private long acquisitions;
+        private long acquireTimeouts;
+        private double averageAcquireMillis;
+        private double maxAcquireMillis;
+
+        public PoolStats() {}
+
+        // Getters and Setters
+        public int getActiveConnections() { return activeConnections; }
+        public void setActiveConnections(int activeConnections) {
+            this.activeConnections = activeConnections;
+        }
+
+        public int getIdleConnections() { return idleConnections; }
+        public void setIdleConnections(int idleConnections) {
+            this.idleConnections = idleConnections;
+        }
+
+        public int getTotalConnections() { return totalConnections; }
+        public void setTotalConnections(int totalConnections) {
+            this.totalConnections = totalConnections;
+        }
+
+        public int getThreadsAwaitingConnection() { return threadsAwaitingConnection; }
+        public void setThreadsAwaitingConnection(int threadsAwaitingConnection) {
+            this.threadsAwaitingConnection = threadsAwaitingConnection;
+        }
+
+        public long getAcquisitions() { return acquisitions; }
+        public void setAcquisitions(long acquisitions) { this.acquisitions = acquisitions; }
+
+        public long getAcquireTimeouts() { return acquireTimeouts; }
+        public void setAcquireTimeouts(long acquireTimeouts) {
+            this.acquireTimeouts = acquireTimeouts;
+        }
+
+        public double getAverageAcquireMillis() { return averageAcquireMillis; }
+        public void setAverageAcquireMillis(double averageAcquireMillis) {
+            this.averageAcquireMillis = averageAcquireMillis;
+        }
+
+        public double getMaxAcquireMillis() { return maxAcquireMillis; }
+        public void setMaxAcquireMillis(double maxAcquireMillis) {
+            this.maxAcquireMillis = maxAcquireMillis;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.restaurant.api;
+
+import com.restaurant.database.DatabaseManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shares one DatabaseManager (connection pool, availability index, caches)
+ * between the blocking and reactive controllers and closes it on shutdown
+ */
+@Configuration
+public class DatabaseConfig {
+
+    @Bean(destroyMethod = "close")
+    public DatabaseManager databaseManager() {
+        return new DatabaseManager();
+    }
+}
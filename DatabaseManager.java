@@ -1,32 +1,162 @@
 package com.restaurant.database;
 
+import com.restaurant.database.SeatingOptimizer.Seating;
 import com.restaurant.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Database Manager for Restaurant Reservation System
  * Handles all MySQL database operations with optimized queries
+ * Each operation borrows a pooled connection for the duration of the call;
+ * writes and reads that must see them use the primary, other reads may be
+ * served by a replica (see ReplicaRouter)
  */
 public class DatabaseManager {
-    
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/restaurant_db";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "password";
-    
-    private Connection connection;
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseManager.class);
+
+    private static final int STREAM_FETCH_SIZE = 500;
+    // Rows a ReservationCursor reads per borrowed connection
+    private static final int CURSOR_CHUNK_SIZE = 200;
+    private static final int BOOKING_LOCK_STRIPES = 64;
+    // SIGNAL SQLSTATE raised by the prevent_double_booking triggers
+    private static final String DOUBLE_BOOKING_SQLSTATE = "45000";
+    private static final String INSERT_RESERVATION_SQL =
+        "INSERT INTO reservations (customer_id, table_id, reservation_time, end_time, " +
+        "party_size, status, special_requests, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, NOW())";
+    // Explicit column lists; the row mappers read these columns by position.
+    // ENUM columns are selected as column+0 (their 1-based index) and decoded
+    // by ordinal, so no status/location string is read per row.
+    // SQL is built only from constants so every call sends the identical
+    // string and hits the driver's prepared statement cache.
+    // The last column lists the tables joined to table_id, NULL for most rows.
+    static final String SELECT_RESERVATION =
+        "SELECT reservation_id, customer_id, table_id, reservation_time, " +
+        "party_size, status+0, special_requests, end_time, " +
+        "(SELECT GROUP_CONCAT(rt.table_id ORDER BY rt.table_id) FROM reservation_tables rt " +
+        "WHERE rt.reservation_id = reservations.reservation_id) FROM reservations ";
+    // Same columns from the archive, which keeps the joined tables as a list;
+    // admin history queries UNION ALL it with the live table
+    static final String SELECT_ARCHIVED_RESERVATION =
+        "SELECT reservation_id, customer_id, table_id, reservation_time, " +
+        "party_size, status+0, special_requests, end_time, joined_table_ids " +
+        "FROM reservations_archive ";
+    private static final String SELECT_TABLE =
+        "SELECT table_id, table_number, capacity, location+0, status+0 FROM tables ";
+    private static final String SELECT_CUSTOMER =
+        "SELECT customer_id, name, email, phone FROM customers ";
+    private static final String SELECT_WAITLIST =
+        "SELECT waitlist_id, customer_id, reservation_time, party_size, special_requests, " +
+        "status+0, reservation_id FROM waitlist ";
+    // CONFIRMED bookings holding a table through reservation_tables
+    private static final String JOINED_BOOKINGS =
+        "SELECT rt.reservation_id, rt.table_id, r.reservation_time, r.end_time " +
+        "FROM reservation_tables rt " +
+        "JOIN reservations r ON r.reservation_id = rt.reservation_id " +
+        "WHERE r.status = 'CONFIRMED' ";
+    // Single key of the table layout cache
+    private static final Integer ALL_TABLES = 0;
+
+    private final ConnectionPool pool;
+    // Read-only calls that may be served by a replica borrow from here
+    private final ReplicaRouter replicas;
+    private final ReservationArchiver archiver;
+    private final ReportRollups rollups;
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+    private final ReentrantLock indexLoadLock = new ReentrantLock();
+    // Local journal the index is recovered from on restart; null when disabled
+    private final ReservationJournal journal;
+    private final ReentrantLock[] bookingLocks = new ReentrantLock[BOOKING_LOCK_STRIPES];
+    private final StatisticsTracker statisticsTracker = new StatisticsTracker();
+    private final ReentrantLock statisticsLoadLock = new ReentrantLock();
+    private final List<ReservationListener> listeners = new CopyOnWriteArrayList<>();
+    private final LruCache<Integer, Customer> customerCache = new LruCache<>("customers",
+        Settings.getInt("restaurant.cache.customers.maxSize", 10000),
+        Settings.getLong("restaurant.cache.customers.ttlSeconds", 600), TimeUnit.SECONDS);
+    private final LruCache<Integer, List<Table>> tableCache = new LruCache<>("tables",
+        1, Settings.getLong("restaurant.cache.tables.ttlSeconds", 60), TimeUnit.SECONDS);
+    private final ScheduledExecutorService maintenance;
 
     public DatabaseManager() {
-        try {
-            // Load MySQL JDBC Driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            this.connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        } catch (Exception e) {
-            e.printStackTrace();
+        this(ConnectionPool.fromEnvironment(), ConnectionPool.replicasFromEnvironment());
+    }
+
+    public DatabaseManager(ConnectionPool pool) {
+        this(pool, List.of());
+    }
+
+    /**
+     * @param replicaPools read replicas of pool; read-only calls are routed
+     *                     to them by a ReplicaRouter
+     */
+    public DatabaseManager(ConnectionPool pool, List<ConnectionPool> replicaPools) {
+        this.pool = pool;
+        this.replicas = new ReplicaRouter(pool, replicaPools);
+        this.journal = ReservationJournal.fromEnvironment();
+        this.archiver = new ReservationArchiver(pool);
+        this.rollups = new ReportRollups(pool, replicas);
+        for (int i = 0; i < bookingLocks.length; i++) {
+            bookingLocks[i] = new ReentrantLock();
+        }
+        addListener(availabilityIndex);
+        if (journal != null) {
+            addListener(journal);
         }
+        addListener(statisticsTracker);
+        addListener(replicas);
+        addListener(rollups);
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long reconcileSeconds = Settings.getLong("restaurant.stats.reconcileSeconds", 300);
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                reconcileStatistics();
+            } catch (SQLException e) {
+                log.warn("Statistics reconcile failed", e);
+            }
+        }, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+        if (journal != null) {
+            long snapshotSeconds = Settings.getLong("restaurant.journal.snapshotSeconds", 300);
+            maintenance.scheduleWithFixedDelay(this::snapshotAvailabilityIndex,
+                snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+        }
+        long flushSeconds = Settings.getLong("restaurant.reports.flushSeconds", 5);
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                rollups.flush();
+            } catch (SQLException e) {
+                log.warn("Rollup flush failed", e);
+            }
+        }, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Register for notifications of committed reservation/table changes
+     */
+    public void addListener(ReservationListener listener) {
+        listeners.add(listener);
     }
 
     // ==========================================
@@ -38,18 +168,23 @@ public class DatabaseManager {
      * Optimized query for high-speed insertion
      */
     public int createReservation(Reservation reservation) throws SQLException {
-        String sql = "INSERT INTO reservations (customer_id, table_id, reservation_time, " +
-                    "party_size, status, special_requests, created_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, NOW())";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, reservation.getCustomerId());
-            stmt.setInt(2, reservation.getTableId());
-            stmt.setTimestamp(3, Timestamp.valueOf(reservation.getReservationTime()));
-            stmt.setInt(4, reservation.getPartySize());
-            stmt.setString(5, reservation.getStatus());
-            stmt.setString(6, reservation.getSpecialRequests());
-            
+        Reservation created = withId(reservation, 0);
+        created.setEndTime(endTimeOf(created.getPartySize(), created.getReservationTime()));
+        try (Connection conn = pool.getConnection()) {
+            int reservationId = insertReservation(conn, created);
+            if (reservationId != -1) {
+                created.setReservationId(reservationId);
+                insertJoinedTables(conn, List.of(created));
+                fireReservationCreated(created);
+            }
+            return reservationId;
+        }
+    }
+
+    private int insertReservation(Connection conn, Reservation reservation) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                INSERT_RESERVATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(stmt, reservation);
             stmt.executeUpdate();
             
             ResultSet rs = stmt.getGeneratedKeys();
@@ -60,13 +195,50 @@ public class DatabaseManager {
         return -1;
     }
 
+    /**
+     * Insert all rows with one batched statement and set their generated ids
+     * With rewriteBatchedStatements=true Connector/J sends a single
+     * multi-row INSERT instead of one round trip per row
+     */
+    private void insertReservations(Connection conn, List<Reservation> reservations) 
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                INSERT_RESERVATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Reservation reservation : reservations) {
+                bindInsert(stmt, reservation);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            
+            ResultSet rs = stmt.getGeneratedKeys();
+            for (Reservation reservation : reservations) {
+                if (!rs.next()) {
+                    throw new SQLException("Missing generated key for batched reservation");
+                }
+                reservation.setReservationId(rs.getInt(1));
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Reservation reservation) 
+            throws SQLException {
+        stmt.setInt(1, reservation.getCustomerId());
+        stmt.setInt(2, reservation.getTableId());
+        stmt.setObject(3, reservation.getReservationTime());
+        stmt.setObject(4, reservation.getEndTime());
+        stmt.setInt(5, reservation.getPartySize());
+        stmt.setString(6, reservation.getStatus().name());
+        stmt.setString(7, reservation.getSpecialRequests());
+    }
+
     /**
      * Get reservation by ID
      */
     public Reservation getReservationById(int reservationId) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE reservation_id = ?";
+        String sql = SELECT_RESERVATION + "WHERE reservation_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, reservationId);
             ResultSet rs = stmt.executeQuery();
             
@@ -81,12 +253,13 @@ public class DatabaseManager {
      * Get all reservations for a customer
      */
     public List<Reservation> getReservationsByCustomerId(int customerId) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE customer_id = ? " +
+        String sql = SELECT_RESERVATION + "WHERE customer_id = ? " +
                     "ORDER BY reservation_time DESC";
         
         List<Reservation> reservations = new ArrayList<>();
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = replicas.getConnectionForCustomer(customerId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, customerId);
             ResultSet rs = stmt.executeQuery();
             
@@ -94,23 +267,63 @@ public class DatabaseManager {
                 reservations.add(mapResultSetToReservation(rs));
             }
         }
-        return reservations;
+        return rows("getReservationsByCustomerId", reservations);
     }
 
     /**
-     * Update an existing reservation
+     * Open a cursor over a customer's reservations, newest first
+     * The cursor borrows a connection per chunk of CURSOR_CHUNK_SIZE rows and
+     * holds none between reads, so it needs no closing
      */
-    public boolean updateReservation(Reservation reservation) throws SQLException {
-        String sql = "UPDATE reservations SET table_id = ?, reservation_time = ?, " +
+    public ReservationCursor openReservationCursorByCustomerId(int customerId) {
+        return new ReservationCursor((beforeTime, beforeId, limit) ->
+            getReservationsByCustomerIdChunk(customerId, beforeTime, beforeId, limit),
+            CURSOR_CHUNK_SIZE);
+    }
+
+    private List<Reservation> getReservationsByCustomerIdChunk(int customerId,
+            LocalDateTime beforeTime, int beforeId, int limit) throws SQLException {
+        String sql = SELECT_RESERVATION + "WHERE customer_id = ? " +
+                    (beforeTime != null
+                        ? "AND (reservation_time < ? OR " +
+                          "(reservation_time = ? AND reservation_id < ?)) "
+                        : "") +
+                    "ORDER BY reservation_time DESC, reservation_id DESC LIMIT ?";
+        
+        List<Reservation> reservations = new ArrayList<>();
+        
+        try (Connection conn = replicas.getConnectionForCustomer(customerId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            stmt.setInt(index++, customerId);
+            if (beforeTime != null) {
+                stmt.setObject(index++, beforeTime);
+                stmt.setObject(index++, beforeTime);
+                stmt.setInt(index++, beforeId);
+            }
+            stmt.setInt(index, limit);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                reservations.add(mapResultSetToReservation(rs));
+            }
+        }
+        return rows("openReservationCursorByCustomerId", reservations);
+    }
+
+    private boolean updateReservationRow(Connection conn, Reservation reservation) 
+            throws SQLException {
+        String sql = "UPDATE reservations SET table_id = ?, reservation_time = ?, end_time = ?, " +
                     "party_size = ?, special_requests = ?, updated_at = NOW() " +
                     "WHERE reservation_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, reservation.getTableId());
-            stmt.setTimestamp(2, Timestamp.valueOf(reservation.getReservationTime()));
-            stmt.setInt(3, reservation.getPartySize());
-            stmt.setString(4, reservation.getSpecialRequests());
-            stmt.setInt(5, reservation.getReservationId());
+            stmt.setObject(2, reservation.getReservationTime());
+            stmt.setObject(3, reservation.getEndTime());
+            stmt.setInt(4, reservation.getPartySize());
+            stmt.setString(5, reservation.getSpecialRequests());
+            stmt.setInt(6, reservation.getReservationId());
             
             return stmt.executeUpdate() > 0;
         }
@@ -123,67 +336,627 @@ public class DatabaseManager {
         String sql = "UPDATE reservations SET status = 'CANCELLED', updated_at = NOW() " +
                     "WHERE reservation_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Reservation before = selectForUpdate(conn, reservationId);
+                if (before == null) {
+                    conn.rollback();
+                    return false;
+                }
+                
+                stmt.setInt(1, reservationId);
+                
+                boolean cancelled = stmt.executeUpdate() > 0;
+                conn.commit();
+                if (cancelled) {
+                    fireReservationCancelled(before);
+                }
+                return cancelled;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private Reservation selectForUpdate(Connection conn, int reservationId) throws SQLException {
+        String sql = SELECT_RESERVATION + "WHERE reservation_id = ? FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, reservationId);
-            return stmt.executeUpdate() > 0;
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return mapResultSetToReservation(rs);
+            }
         }
+        return null;
     }
 
     /**
-     * Get all reservations (admin)
+     * Get one page of all reservations (admin), newest first, archived ones
+     * included
+     * Keyset pagination on (reservation_time, reservation_id): pass the last
+     * row of the previous page, or null for the first page
      */
-    public List<Reservation> getAllReservations() throws SQLException {
-        String sql = "SELECT * FROM reservations ORDER BY reservation_time DESC";
+    public List<Reservation> getReservationsPage(LocalDateTime beforeTime, int beforeId, 
+            int limit) throws SQLException {
+        String where = beforeTime != null
+            ? "WHERE reservation_time < ? OR (reservation_time = ? AND reservation_id < ?) "
+            : "";
+        String order = "ORDER BY reservation_time DESC, reservation_id DESC LIMIT ?";
+        // Each side stops at its own page before the two are merged
+        String sql = "(" + SELECT_RESERVATION + where + order + ") UNION ALL (" +
+                    SELECT_ARCHIVED_RESERVATION + where + order + ") " + order;
+        
         List<Reservation> reservations = new ArrayList<>();
         
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int side = 0; side < 2; side++) {
+                if (beforeTime != null) {
+                    stmt.setObject(index++, beforeTime);
+                    stmt.setObject(index++, beforeTime);
+                    stmt.setInt(index++, beforeId);
+                }
+                stmt.setInt(index++, limit);
+            }
+            stmt.setInt(index, limit);
+            ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
                 reservations.add(mapResultSetToReservation(rs));
             }
         }
-        return reservations;
+        return rows("getReservationsPage", reservations);
+    }
+
+    /**
+     * Stream every reservation to the handler as rows are read: the archived
+     * ones, then the live ones, each oldest first
+     * Forward-only cursors with a bounded fetch size (needs useCursorFetch=true
+     * on the JDBC URL) so memory stays flat regardless of table size. Both
+     * are read in one transaction, so a row archived meanwhile is seen once.
+     */
+    public void streamReservations(ReservationHandler handler) 
+            throws SQLException, IOException {
+        String order = "ORDER BY reservation_time, reservation_id";
+        
+        try (Connection conn = replicas.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long count = streamRows(conn, SELECT_ARCHIVED_RESERVATION + order, handler);
+                count += streamRows(conn, SELECT_RESERVATION + order, handler);
+                Metrics.registry().increment(Metrics.DB_ROWS, "method", "streamReservations",
+                    count);
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static long streamRows(Connection conn, String sql, ReservationHandler handler)
+            throws SQLException, IOException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet rs = stmt.executeQuery();
+        
+            long count = 0;
+            while (rs.next()) {
+                handler.handle(mapResultSetToReservation(rs));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Receives rows from streaming queries one at a time
+     */
+    public interface ReservationHandler {
+        void handle(Reservation reservation) throws IOException;
     }
 
     /**
      * Get reservations by date
      */
     public List<Reservation> getReservationsByDate(String date) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE DATE(reservation_time) = ? " +
+        LocalDate day = LocalDate.parse(date);
+        return getReservationsInRange(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Get reservations with reservation_time in [from, to), archived ones
+     * included
+     * Range predicate so idx_time (idx_archive_time and partition pruning on
+     * the archive) can be used
+     */
+    public List<Reservation> getReservationsInRange(LocalDateTime from, LocalDateTime to) 
+            throws SQLException {
+        String where = "WHERE reservation_time >= ? AND reservation_time < ? ";
+        String sql = SELECT_RESERVATION + where + "UNION ALL " +
+                    SELECT_ARCHIVED_RESERVATION + where +
+                    "ORDER BY reservation_time";
+        
+        List<Reservation> reservations = new ArrayList<>();
+        
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, from);
+            stmt.setObject(2, to);
+            stmt.setObject(3, from);
+            stmt.setObject(4, to);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                reservations.add(mapResultSetToReservation(rs));
+            }
+        }
+        return rows("getReservationsInRange", reservations);
+    }
+
+    /**
+     * Get reservations for a table with reservation_time in [from, to),
+     * archived ones included
+     * Uses idx_table_time (table_id, reservation_time) and its archive twin
+     */
+    public List<Reservation> getReservationsByTable(int tableId, LocalDateTime from, 
+            LocalDateTime to) throws SQLException {
+        String where = "WHERE table_id = ? AND reservation_time >= ? AND reservation_time < ? ";
+        String sql = SELECT_RESERVATION + where + "UNION ALL " +
+                    SELECT_ARCHIVED_RESERVATION + where +
+                    "ORDER BY reservation_time";
+        
+        List<Reservation> reservations = new ArrayList<>();
+        
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int index = 1; index <= 4; index += 3) {
+                stmt.setInt(index, tableId);
+                stmt.setObject(index + 1, from);
+                stmt.setObject(index + 2, to);
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                reservations.add(mapResultSetToReservation(rs));
+            }
+        }
+        return rows("getReservationsByTable", reservations);
+    }
+
+    /**
+     * Get reservations by status, archived ones included
+     */
+    public List<Reservation> getReservationsByStatus(ReservationStatus status) throws SQLException {
+        String sql = SELECT_RESERVATION + "WHERE status = ? UNION ALL " +
+                    SELECT_ARCHIVED_RESERVATION + "WHERE status = ? " +
                     "ORDER BY reservation_time";
         
         List<Reservation> reservations = new ArrayList<>();
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, date);
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status.name());
+            stmt.setString(2, status.name());
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
                 reservations.add(mapResultSetToReservation(rs));
             }
         }
-        return reservations;
+        return rows("getReservationsByStatus", reservations);
     }
 
     /**
-     * Get reservations by status
+     * Get reservations by status with reservation_time in [from, to),
+     * archived ones included
+     * Uses idx_status_time (status, reservation_time) and its archive twin
      */
-    public List<Reservation> getReservationsByStatus(String status) throws SQLException {
-        String sql = "SELECT * FROM reservations WHERE status = ? " +
+    public List<Reservation> getReservationsByStatus(ReservationStatus status, LocalDateTime from, 
+            LocalDateTime to) throws SQLException {
+        String where = "WHERE status = ? AND reservation_time >= ? AND reservation_time < ? ";
+        String sql = SELECT_RESERVATION + where + "UNION ALL " +
+                    SELECT_ARCHIVED_RESERVATION + where +
                     "ORDER BY reservation_time";
         
         List<Reservation> reservations = new ArrayList<>();
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int index = 1; index <= 4; index += 3) {
+                stmt.setString(index, status.name());
+                stmt.setObject(index + 1, from);
+                stmt.setObject(index + 2, to);
+            }
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
                 reservations.add(mapResultSetToReservation(rs));
             }
         }
-        return reservations;
+        return rows("getReservationsByStatus", reservations);
+    }
+
+    // ==========================================
+    // ATOMIC BOOKING
+    // ==========================================
+
+    /**
+     * Book a new reservation on the best seating that can be claimed
+     * The table id on the request is ignored; returns the created reservation
+     * or null when every candidate seating is taken
+     */
+    public Reservation bookReservation(Reservation request) throws SQLException {
+        return bookReservation(request, null);
+    }
+
+    /**
+     * Book a new reservation, preferring tables in the given location
+     * (null for no preference) whenever one is free
+     */
+    public Reservation bookReservation(Reservation request, TableLocation preferredLocation) 
+            throws SQLException {
+        return claimTable(request, preferredLocation, false);
+    }
+
+    /**
+     * Move an existing reservation to the requested time / party size
+     * Returns the updated reservation or null when no table can be claimed
+     */
+    public Reservation moveReservation(Reservation reservation) throws SQLException {
+        return claimTable(reservation, null, true);
+    }
+
+    /**
+     * Book a batch of new reservations (bulk import, group booking)
+     * Seatings are assigned in memory against one snapshot of the availability
+     * index, then every placed row is inserted in a single transaction while
+     * the stripe locks for all (table, day) pairs are held in ascending order.
+     * Rows the index cannot place (times before its window) or that lost a
+     * race go through bookReservation one by one.
+     * @return one entry per request, in order; null where no table was free
+     */
+    public List<Reservation> bookReservations(List<Reservation> requests) throws SQLException {
+        ensureAvailabilityIndexLoaded();
+        Seating[] seatings = availabilityIndex.allocate(requests);
+        
+        Reservation[] results = new Reservation[requests.size()];
+        List<Integer> placed = new ArrayList<>();
+        List<Integer> oneByOne = new ArrayList<>();
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Reservation request = requests.get(i);
+            if (seatings[i] != null) {
+                placed.add(i);
+                for (int tableId : seatings[i].tableIds()) {
+                    stripes.add(bookingStripe(tableId, request.getReservationTime().toLocalDate()));
+                }
+            } else if (!availabilityIndex.covers(request.getReservationTime())) {
+                oneByOne.add(i);
+            }
+        }
+        
+        List<Reservation> inserted = new ArrayList<>();
+        for (int stripe : stripes) {
+            bookingLocks[stripe].lock();
+        }
+        try {
+            // A single booking may have taken one of the tables since allocate()
+            List<Integer> batch = new ArrayList<>();
+            for (int i : placed) {
+                Reservation request = requests.get(i);
+                if (availabilityIndex.isFree(seatings[i].tableIds(), 
+                        request.getReservationTime(), 
+                        endTimeOf(request.getPartySize(), request.getReservationTime()))) {
+                    batch.add(i);
+                } else {
+                    oneByOne.add(i);
+                }
+            }
+            
+            for (int i : batch) {
+                Reservation reservation = withId(requests.get(i), 0);
+                reservation.setTableId(seatings[i].primaryTableId());
+                reservation.setJoinedTableIds(seatings[i].joinedTableIds());
+                reservation.setEndTime(
+                    endTimeOf(reservation.getPartySize(), reservation.getReservationTime()));
+                inserted.add(reservation);
+            }
+            if (!inserted.isEmpty() && !insertBatch(inserted)) {
+                // Another node booked one of the tables; fall back for the whole batch
+                inserted.clear();
+                oneByOne.addAll(batch);
+                batch.clear();
+            }
+            for (int j = 0; j < batch.size(); j++) {
+                results[batch.get(j)] = inserted.get(j);
+            }
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                bookingLocks[stripe].unlock();
+            }
+        }
+        
+        for (Reservation reservation : inserted) {
+            fireReservationCreated(reservation);
+        }
+        Collections.sort(oneByOne);
+        for (int i : oneByOne) {
+            results[i] = bookReservation(requests.get(i));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Insert the placed rows in one transaction; false when a table is no
+     * longer AVAILABLE or a prevent_double_booking trigger rejected a row
+     */
+    private boolean insertBatch(List<Reservation> reservations) throws SQLException {
+        // Same table row locks as claimTable, taken before the triggers' reads
+        TreeSet<Integer> tableIds = new TreeSet<>();
+        for (Reservation reservation : reservations) {
+            for (int tableId : AvailabilityIndex.tableIdsOf(reservation)) {
+                tableIds.add(tableId);
+            }
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!lockTables(conn, tableIds.stream().mapToInt(Integer::intValue).toArray())) {
+                    conn.rollback();
+                    return false;
+                }
+                insertReservations(conn, reservations);
+                insertJoinedTables(conn, reservations);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                if (!isDoubleBooking(e)) {
+                    throw e;
+                }
+                return false;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * BatchUpdateException may carry the trigger's SQLSTATE on a chained exception
+     */
+    private static boolean isDoubleBooking(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                if (DOUBLE_BOOKING_SQLSTATE.equals(sql.getSQLState())) return true;
+                SQLException next = sql.getNextException();
+                if (next != null && DOUBLE_BOOKING_SQLSTATE.equals(next.getSQLState())) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Try each candidate seating in turn. A claim holds the in-process stripe
+     * locks for its (table, day) pairs and row locks on its tables, re-checks
+     * each table for an overlapping CONFIRMED booking with a narrow range
+     * query, then writes. A conflict (including the prevent_double_booking
+     * triggers) moves on to the next candidate instead of failing the request.
+     */
+    private Reservation claimTable(Reservation reservation, TableLocation preferredLocation,
+            boolean existing) throws SQLException {
+        int excludeId = existing ? reservation.getReservationId() : -1;
+        LocalDateTime time = reservation.getReservationTime();
+        LocalDateTime end = endTimeOf(reservation.getPartySize(), time);
+        
+        for (Seating candidate : findSeatings(reservation.getPartySize(), preferredLocation, 
+                time, excludeId)) {
+            List<ReentrantLock> stripes = bookingLocks(candidate.tableIds(), time.toLocalDate());
+            stripes.forEach(ReentrantLock::lock);
+            try (Connection conn = pool.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (!lockFreeTables(conn, candidate, time, end, excludeId)) {
+                        conn.rollback();
+                        continue;
+                    }
+                    
+                    Reservation claimed;
+                    Reservation before = null;
+                    if (existing) {
+                        before = selectForUpdate(conn, reservation.getReservationId());
+                        if (before == null) {
+                            conn.rollback();
+                            return null;
+                        }
+                        claimed = movedTo(before, reservation);
+                        claimed.setTableId(candidate.primaryTableId());
+                        claimed.setJoinedTableIds(candidate.joinedTableIds());
+                        claimed.setEndTime(end);
+                        updateReservationRow(conn, claimed);
+                        replaceJoinedTables(conn, claimed);
+                    } else {
+                        claimed = withId(reservation, 0);
+                        claimed.setTableId(candidate.primaryTableId());
+                        claimed.setJoinedTableIds(candidate.joinedTableIds());
+                        claimed.setEndTime(end);
+                        claimed.setReservationId(insertReservation(conn, claimed));
+                        insertJoinedTables(conn, List.of(claimed));
+                    }
+                    conn.commit();
+                    
+                    if (existing) {
+                        fireReservationUpdated(before, claimed);
+                    } else {
+                        fireReservationCreated(claimed);
+                    }
+                    return claimed;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (!isDoubleBooking(e)) {
+                        throw e;
+                    }
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } finally {
+                for (int i = stripes.size() - 1; i >= 0; i--) {
+                    stripes.get(i).unlock();
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Seating> findSeatings(int partySize, TableLocation preferredLocation, 
+            LocalDateTime time, int excludeId) throws SQLException {
+        ensureAvailabilityIndexLoaded();
+        if (availabilityIndex.covers(time)) {
+            return availabilityIndex.findSeatings(partySize, preferredLocation, time, excludeId);
+        }
+        Table table = queryAvailableTable(partySize, time, endTimeOf(partySize, time), excludeId);
+        return table != null 
+            ? List.of(new Seating(new int[] {table.getTableId()}, table.getCapacity())) 
+            : List.of();
+    }
+
+    /**
+     * Stripe locks for every (table, day) pair, in ascending stripe order
+     */
+    private List<ReentrantLock> bookingLocks(int[] tableIds, LocalDate date) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int tableId : tableIds) {
+            stripes.add(bookingStripe(tableId, date));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            locks.add(bookingLocks[stripe]);
+        }
+        return locks;
+    }
+
+    private int bookingStripe(int tableId, LocalDate date) {
+        int hash = 31 * tableId + date.hashCode();
+        return Math.floorMod(hash, bookingLocks.length);
+    }
+
+    /**
+     * Row-lock each table of the seating in ascending id order, then check
+     * none of them has a booking overlapping [start, end)
+     * Every lock is taken before the first check: under REPEATABLE READ the
+     * first plain SELECT fixes the transaction's snapshot, and a snapshot
+     * taken while a later table's lock was still being waited for would miss
+     * the booking its holder committed on it.
+     */
+    private boolean lockFreeTables(Connection conn, Seating seating, LocalDateTime start, 
+            LocalDateTime end, int excludeReservationId) throws SQLException {
+        if (!lockTables(conn, seating.tableIds())) return false;
+        for (int tableId : seating.tableIds()) {
+            if (hasConflict(conn, tableId, start, end, excludeReservationId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Row-lock every table in ascending id order; false when one of them is
+     * not AVAILABLE
+     */
+    private boolean lockTables(Connection conn, int[] tableIds) throws SQLException {
+        int[] ordered = tableIds.clone();
+        Arrays.sort(ordered);
+        for (int tableId : ordered) {
+            if (!lockTable(conn, tableId)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Row-lock the table; serializes claims on it across application nodes
+     */
+    private boolean lockTable(Connection conn, int tableId) throws SQLException {
+        String sql = "SELECT table_id FROM tables " +
+                    "WHERE table_id = ? AND status = 'AVAILABLE' FOR UPDATE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, tableId);
+            return stmt.executeQuery().next();
+        }
+    }
+
+    /**
+     * CONFIRMED booking on the table overlapping [start, end), either as a
+     * reservation's own table or as one joined to it
+     * The reservation_time range is bounded below by the longest possible
+     * turn so it stays a range scan on idx_table_time; end_time decides
+     */
+    private boolean hasConflict(Connection conn, int tableId, LocalDateTime start, 
+            LocalDateTime end, int excludeReservationId) throws SQLException {
+        String sql = "SELECT 1 FROM reservations " +
+                    "WHERE table_id = ? " +
+                    "AND reservation_time > ? AND reservation_time < ? AND end_time > ? " +
+                    "AND status = 'CONFIRMED' AND reservation_id != ? " +
+                    "UNION ALL " +
+                    "SELECT 1 FROM reservation_tables rt " +
+                    "JOIN reservations r ON r.reservation_id = rt.reservation_id " +
+                    "WHERE rt.table_id = ? " +
+                    "AND r.reservation_time > ? AND r.reservation_time < ? AND r.end_time > ? " +
+                    "AND r.status = 'CONFIRMED' AND r.reservation_id != ? " +
+                    "LIMIT 1";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int offset = 0; offset <= 5; offset += 5) {
+                stmt.setInt(offset + 1, tableId);
+                stmt.setObject(offset + 2, start.minusMinutes(TurnTimes.MAX_TURN_MINUTES));
+                stmt.setObject(offset + 3, end);
+                stmt.setObject(offset + 4, start);
+                stmt.setInt(offset + 5, excludeReservationId);
+            }
+            return stmt.executeQuery().next();
+        }
+    }
+
+    /**
+     * Record the tables joined to each reservation's own table in one batch
+     */
+    private void insertJoinedTables(Connection conn, List<Reservation> reservations) 
+            throws SQLException {
+        String sql = "INSERT INTO reservation_tables (reservation_id, table_id) VALUES (?, ?)";
+        boolean any = false;
+        for (Reservation reservation : reservations) {
+            any |= !reservation.getJoinedTableIds().isEmpty();
+        }
+        if (!any) return;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Reservation reservation : reservations) {
+                for (int tableId : reservation.getJoinedTableIds()) {
+                    stmt.setInt(1, reservation.getReservationId());
+                    stmt.setInt(2, tableId);
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void replaceJoinedTables(Connection conn, Reservation reservation) 
+            throws SQLException {
+        String sql = "DELETE FROM reservation_tables WHERE reservation_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, reservation.getReservationId());
+            stmt.executeUpdate();
+        }
+        insertJoinedTables(conn, List.of(reservation));
     }
 
     // ==========================================
@@ -192,7 +965,9 @@ public class DatabaseManager {
 
     /**
      * Find available table for given party size and time
-     * Optimized query for fast lookups
+     * Served from the in-memory availability index, where it is the primary
+     * table of the best seating; falls back to the database (single tables
+     * only) for times before the index window
      */
     public Table findAvailableTable(int partySize, LocalDateTime reservationTime) 
             throws SQLException {
@@ -201,35 +976,260 @@ public class DatabaseManager {
 
     public Table findAvailableTable(int partySize, LocalDateTime reservationTime, 
             int excludeReservationId) throws SQLException {
+        ensureAvailabilityIndexLoaded();
+        if (availabilityIndex.covers(reservationTime)) {
+            return availabilityIndex.findAvailableTable(
+                partySize, reservationTime, excludeReservationId);
+        }
+        return queryAvailableTable(partySize, reservationTime,
+            endTimeOf(partySize, reservationTime), excludeReservationId);
+    }
+
+    /**
+     * Reload the availability index from the database
+     * Holds every table, the turn-time rules and all CONFIRMED reservations
+     * from the start of today; also how edited turn_time_rules take effect
+     */
+    public void reloadAvailabilityIndex() throws SQLException {
+        indexLoadLock.lock();
+        try {
+            // Bookings committed while the load reads are replayed onto it
+            availabilityIndex.beginLoad();
+            LocalDateTime windowStart = LocalDate.now().atStartOfDay();
+            ReservationStore confirmed = loadConfirmedSince(
+                windowStart.minusMinutes(TurnTimes.MAX_TURN_MINUTES), true);
+            availabilityIndex.load(queryAllTables(false), queryTableJoins(), queryTurnTimes(),
+                confirmed, windowStart);
+        } finally {
+            availabilityIndex.endLoad();
+            indexLoadLock.unlock();
+        }
+        snapshotAvailabilityIndex();
+    }
+
+    /**
+     * Rebuild the availability index from the local journal instead of a
+     * full load
+     * The snapshot and the journal written since come from local disk; the
+     * reservations changed after the last journaled change (while this node
+     * was down, or lost with the page cache in an OS crash) are re-read by
+     * updated_at, and the small table, join and turn-time lists re-queried
+     * @return false when the journal is disabled or has no usable snapshot
+     */
+    public boolean recoverAvailabilityIndex() throws SQLException, IOException {
+        if (journal == null) return false;
+        long start = System.nanoTime();
+        indexLoadLock.lock();
+        try {
+            availabilityIndex.beginLoad();
+            ReservationJournal.Recovery recovery = journal.recover();
+            if (recovery == null) return false;
+
+            LocalDateTime windowStart = LocalDate.now().atStartOfDay();
+            LocalDateTime from = windowStart.minusMinutes(TurnTimes.MAX_TURN_MINUTES);
+            ReservationStore confirmed = recovery.bookings();
+            confirmed.removeBefore(ReservationStore.toEpochMinute(from));
+            // updated_at has whole seconds and a clock of its own
+            Timestamp since = new Timestamp(recovery.lastChangeMillis()
+                - Settings.getLong("restaurant.journal.catchUpMarginMs", 60000));
+            int changed = applyChangesSince(confirmed, since, from);
+            availabilityIndex.load(queryAllTables(false), queryTableJoins(), queryTurnTimes(),
+                confirmed, windowStart);
+            log.info("Availability index recovered in {} ms: {} journal records replayed, " +
+                "{} changed reservations re-read", (System.nanoTime() - start) / 1_000_000,
+                recovery.replayed(), changed);
+        } finally {
+            availabilityIndex.endLoad();
+            indexLoadLock.unlock();
+        }
+        snapshotAvailabilityIndex();
+        return true;
+    }
+
+    /**
+     * Bring recovered bookings up to date with every reservation updated
+     * since the given time
+     * @return number of changed reservations
+     */
+    private int applyChangesSince(ReservationStore confirmed, Timestamp since,
+            LocalDateTime from) throws SQLException {
+        String sql = SELECT_RESERVATION + "WHERE updated_at >= ?";
+        int fromMinute = ReservationStore.toEpochMinute(from);
+        int changed = 0;
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, since);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                Reservation reservation = mapResultSetToReservation(rs);
+                int startMinute = ReservationStore.toEpochMinute(reservation.getReservationTime());
+                if (reservation.getStatus() == ReservationStatus.CONFIRMED
+                        && startMinute >= fromMinute) {
+                    confirmed.put(reservation.getReservationId(),
+                        AvailabilityIndex.tableIdsOf(reservation), startMinute,
+                        ReservationStore.toEpochMinute(reservation.getEndTime()));
+                } else {
+                    confirmed.remove(reservation.getReservationId());
+                }
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Write the availability index to a journal snapshot
+     */
+    private void snapshotAvailabilityIndex() {
+        if (journal == null || !availabilityIndex.isLoaded()) return;
+        try {
+            journal.snapshot(availabilityIndex);
+        } catch (IOException e) {
+            log.warn("Availability index snapshot failed; the next start is a full load", e);
+        }
+    }
+
+    /**
+     * CONFIRMED bookings from the given time on, read straight into the
+     * compact store without building Reservation objects
+     * @param joinedTables also hold each booking's joined tables, as the
+     *                     availability index needs; the statistics count
+     *                     one row per reservation, on its primary table
+     */
+    private ReservationStore loadConfirmedSince(LocalDateTime from, boolean joinedTables)
+            throws SQLException {
+        String sql = "SELECT reservation_id, table_id, reservation_time, end_time " +
+                    "FROM reservations WHERE reservation_time >= ? AND status = 'CONFIRMED'";
+        ReservationStore confirmed = new ReservationStore();
+        
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            stmt.setObject(1, from);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                confirmed.put(rs.getInt(1), rs.getInt(2), rs.getObject(3, LocalDateTime.class),
+                    rs.getObject(4, LocalDateTime.class));
+            }
+        }
+        if (!joinedTables) return confirmed;
+
+        // Tables joined to those bookings hold the same slot
+        String joinedSql = JOINED_BOOKINGS + "AND r.reservation_time >= ?";
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(joinedSql)) {
+            stmt.setObject(1, from);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                confirmed.add(rs.getInt(1), rs.getInt(2),
+                    ReservationStore.toEpochMinute(rs.getObject(3, LocalDateTime.class)),
+                    ReservationStore.toEpochMinute(rs.getObject(4, LocalDateTime.class)));
+            }
+        }
+        return confirmed;
+    }
+
+    /**
+     * Pairs of adjacent tables that can be pushed together
+     */
+    private List<int[]> queryTableJoins() throws SQLException {
+        String sql = "SELECT table_id, joined_table_id FROM table_joins";
+        List<int[]> joins = new ArrayList<>();
         
-        // Find tables with sufficient capacity that are not already booked
-        // within 2 hours of the requested time
-        String sql = "SELECT t.* FROM tables t " +
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                joins.add(new int[] {rs.getInt(1), rs.getInt(2)});
+            }
+        }
+        return joins;
+    }
+
+    private TurnTimes queryTurnTimes() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            return TurnTimes.load(conn);
+        }
+    }
+
+    /**
+     * When a party starting at the given time frees its table under the
+     * current turn-time rules
+     */
+    private LocalDateTime endTimeOf(int partySize, LocalDateTime start) throws SQLException {
+        ensureAvailabilityIndexLoaded();
+        return availabilityIndex.getTurnTimes().endOf(partySize, start);
+    }
+
+    private void ensureAvailabilityIndexLoaded() throws SQLException {
+        if (!availabilityIndex.isLoaded()) {
+            indexLoadLock.lock();
+            try {
+                if (!availabilityIndex.isLoaded() && !recoverFromJournal()) {
+                    reloadAvailabilityIndex();
+                }
+            } finally {
+                indexLoadLock.unlock();
+            }
+        }
+    }
+
+    private boolean recoverFromJournal() throws SQLException {
+        try {
+            return recoverAvailabilityIndex();
+        } catch (IOException e) {
+            log.warn("Journal recovery failed; loading the availability index from MySQL", e);
+            return false;
+        }
+    }
+
+    /**
+     * Database lookup used outside the availability index window
+     */
+    private Table queryAvailableTable(int partySize, LocalDateTime reservationTime, 
+            LocalDateTime endTime, int excludeReservationId) throws SQLException {
+        
+        // Find tables with sufficient capacity and no booking overlapping the
+        // party's turn (range on idx_time_range, bounded by the longest turn)
+        String sql = "SELECT t.table_id, t.table_number, t.capacity, t.location+0, t.status+0 " +
+                    "FROM tables t " +
                     "WHERE t.capacity >= ? AND t.status = 'AVAILABLE' " +
                     "AND t.table_id NOT IN (" +
                     "  SELECT r.table_id FROM reservations r " +
-                    "  WHERE r.status = 'CONFIRMED' " +
-                    "  AND r.reservation_id != ? " +
-                    "  AND ABS(TIMESTAMPDIFF(MINUTE, r.reservation_time, ?)) < 120" +
+                    "  WHERE r.reservation_time > ? AND r.reservation_time < ? " +
+                    "  AND r.end_time > ? AND r.status = 'CONFIRMED' " +
+                    "  AND r.reservation_id != ?" +
+                    "  UNION ALL " +
+                    "  SELECT rt.table_id FROM reservation_tables rt " +
+                    "  JOIN reservations r ON r.reservation_id = rt.reservation_id " +
+                    "  WHERE r.reservation_time > ? AND r.reservation_time < ? " +
+                    "  AND r.end_time > ? AND r.status = 'CONFIRMED' " +
+                    "  AND r.reservation_id != ?" +
                     ") " +
                     "ORDER BY t.capacity ASC " +
                     "LIMIT 1";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, partySize);
-            stmt.setInt(2, excludeReservationId);
-            stmt.setTimestamp(3, Timestamp.valueOf(reservationTime));
+            for (int offset = 1; offset <= 5; offset += 4) {
+                stmt.setObject(offset + 1, 
+                    reservationTime.minusMinutes(TurnTimes.MAX_TURN_MINUTES));
+                stmt.setObject(offset + 2, endTime);
+                stmt.setObject(offset + 3, reservationTime);
+                stmt.setInt(offset + 4, excludeReservationId);
+            }
             
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return new Table(
-                    rs.getInt("table_id"),
-                    rs.getInt("table_number"),
-                    rs.getInt("capacity"),
-                    rs.getString("location"),
-                    rs.getString("status")
-                );
+                return mapTable(rs);
             }
         }
         return null;
@@ -237,22 +1237,26 @@ public class DatabaseManager {
 
     /**
      * Get all tables
+     * Read through the table cache; invalidated by updateTableStatus
      */
     public List<Table> getAllTables() throws SQLException {
-        String sql = "SELECT * FROM tables ORDER BY table_number";
+        return new ArrayList<>(tableCache.get(ALL_TABLES, key -> queryAllTables(true)));
+    }
+
+    /**
+     * @param fromReplica false where the layout must match the primary
+     */
+    private List<Table> queryAllTables(boolean fromReplica) throws SQLException {
+        String sql = SELECT_TABLE + "ORDER BY table_number";
         List<Table> tables = new ArrayList<>();
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection conn = fromReplica ? replicas.getConnectionForTables()
+                 : pool.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                tables.add(new Table(
-                    rs.getInt("table_id"),
-                    rs.getInt("table_number"),
-                    rs.getInt("capacity"),
-                    rs.getString("location"),
-                    rs.getString("status")
-                ));
+                tables.add(mapTable(rs));
             }
         }
         return tables;
@@ -261,47 +1265,252 @@ public class DatabaseManager {
     /**
      * Update table status
      */
-    public boolean updateTableStatus(int tableId, String status) throws SQLException {
+    public boolean updateTableStatus(int tableId, TableStatus status) throws SQLException {
         String sql = "UPDATE tables SET status = ? WHERE table_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status.name());
             stmt.setInt(2, tableId);
-            return stmt.executeUpdate() > 0;
+            
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                tableCache.invalidateAll();
+                fireTableStatusChanged(tableId, status);
+            }
+            return updated;
         }
     }
 
     /**
-     * Get available time slots
+     * Get available time slots (hourly)
      */
     public List<TimeSlot> getAvailableTimeSlots(String date, int partySize) 
             throws SQLException {
-        List<TimeSlot> availableSlots = new ArrayList<>();
+        return getAvailableTimeSlots(date, partySize, 60);
+    }
+
+    /**
+     * Get available time slots at the given granularity in minutes
+     * All slots are computed in one sweep over the day's schedule, which comes
+     * from the availability index or, for past dates, a single range query
+     */
+    public List<TimeSlot> getAvailableTimeSlots(String date, int partySize, 
+            int granularityMinutes) throws SQLException {
+        return loadDaySchedule(LocalDate.parse(date))
+            .availableSlots(partySize, granularityMinutes);
+    }
+
+    /**
+     * Search a range of days for the earliest free slots, or those closest to
+     * a preferred time; the days are loaded in one pass and evaluated in
+     * parallel (see AvailabilitySearch)
+     */
+    public List<TimeSlot> searchAvailability(AvailabilitySearch.Query query) throws SQLException {
+        List<TimeSlot> slots = AvailabilitySearch.search(
+            loadDaySchedules(query.fromDate(), query.toDate()), query);
+        return rows("searchAvailability", slots);
+    }
+
+    private DaySchedule loadDaySchedule(LocalDate date) throws SQLException {
+        return loadDaySchedules(date, date).get(0);
+    }
+
+    /**
+     * Schedules for every day from first to last inclusive, from the
+     * availability index or, when the range starts before it, a single range
+     * query
+     */
+    private List<DaySchedule> loadDaySchedules(LocalDate first, LocalDate last)
+            throws SQLException {
+        ensureAvailabilityIndexLoaded();
+        if (availabilityIndex.covers(first.atStartOfDay())) {
+            return availabilityIndex.daySchedules(first, last);
+        }
+        
+        String sql = "SELECT table_id, reservation_time, end_time FROM reservations " +
+                    "WHERE reservation_time > ? AND reservation_time < ? " +
+                    "AND status = 'CONFIRMED' " +
+                    "UNION ALL " +
+                    "SELECT rt.table_id, r.reservation_time, r.end_time " +
+                    "FROM reservation_tables rt " +
+                    "JOIN reservations r ON r.reservation_id = rt.reservation_id " +
+                    "WHERE r.reservation_time > ? AND r.reservation_time < ? " +
+                    "AND r.status = 'CONFIRMED'";
+        
+        List<DaySchedule> schedules = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            schedules.add(availabilityIndex.emptySchedule(date));
+        }
         
-        // Check availability for each hour from 9 AM to 9 PM
-        for (int hour = 9; hour <= 21; hour++) {
-            String timeString = String.format("%s %02d:00:00", date, hour);
-            LocalDateTime slotTime = LocalDateTime.parse(timeString, 
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        try (Connection conn = replicas.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int offset = 0; offset <= 2; offset += 2) {
+                stmt.setObject(offset + 1, first.atStartOfDay()
+                    .minusMinutes(TurnTimes.MAX_TURN_MINUTES));
+                stmt.setObject(offset + 2, last.plusDays(1).atStartOfDay()
+                    .plusMinutes(TurnTimes.MAX_TURN_MINUTES));
+            }
+            ResultSet rs = stmt.executeQuery();
             
-            Table table = findAvailableTable(partySize, slotTime);
+            while (rs.next()) {
+                LocalDateTime time = rs.getObject(2, LocalDateTime.class);
+                LocalDateTime end = rs.getObject(3, LocalDateTime.class);
+                // Only the booking's own day and its neighbours can be reached
+                int day = (int) ChronoUnit.DAYS.between(first, time.toLocalDate());
+                int to = Math.min(day + 1, schedules.size() - 1);
+                for (int i = Math.max(day - 1, 0); i <= to; i++) {
+                    schedules.get(i).addBooking(rs.getInt(1), time, end);
+                }
+            }
+        }
+        return schedules;
+    }
+
+    // ==========================================
+    // WAITLIST OPERATIONS
+    // ==========================================
+
+    /**
+     * Queue a booking request that found no free table
+     * @return the new waitlist id, or -1
+     */
+    public int addToWaitlist(WaitlistEntry entry) throws SQLException {
+        String sql = "INSERT INTO waitlist (customer_id, reservation_time, party_size, " +
+                    "special_requests, status, created_at) VALUES (?, ?, ?, ?, 'WAITING', NOW())";
+        
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, entry.getCustomerId());
+            stmt.setObject(2, entry.getReservationTime());
+            stmt.setInt(3, entry.getPartySize());
+            stmt.setString(4, entry.getSpecialRequests());
+            
+            stmt.executeUpdate();
+            
+            ResultSet rs = stmt.getGeneratedKeys();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+        return -1;
+    }
+
+    public WaitlistEntry getWaitlistEntry(int waitlistId) throws SQLException {
+        String sql = SELECT_WAITLIST + "WHERE waitlist_id = ?";
+        
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, waitlistId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return mapWaitlistEntry(rs);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * WAITING entries for times from the given one on, oldest first
+     */
+    public List<WaitlistEntry> getWaitingEntries(LocalDateTime from) throws SQLException {
+        String sql = SELECT_WAITLIST + "WHERE status = 'WAITING' AND reservation_time >= ? " +
+                    "ORDER BY waitlist_id";
+        List<WaitlistEntry> entries = new ArrayList<>();
+        
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, from);
+            ResultSet rs = stmt.executeQuery();
             
-            if (table != null) {
-                availableSlots.add(new TimeSlot(
-                    slotTime,
-                    true,
-                    table.getTableNumber()
-                ));
-            } else {
-                availableSlots.add(new TimeSlot(
-                    slotTime,
-                    false,
-                    -1
-                ));
+            while (rs.next()) {
+                entries.add(mapWaitlistEntry(rs));
             }
         }
+        return rows("getWaitingEntries", entries);
+    }
+
+    /**
+     * Take an entry off the waitlist; false when it is no longer WAITING
+     */
+    public boolean cancelWaitlistEntry(int waitlistId) throws SQLException {
+        String sql = "UPDATE waitlist SET status = 'CANCELLED', updated_at = NOW() " +
+                    "WHERE waitlist_id = ? AND status = 'WAITING'";
         
-        return availableSlots;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, waitlistId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Mark WAITING entries for times before the given one EXPIRED
+     * @return number of entries expired
+     */
+    public int expireWaitlist(LocalDateTime before) throws SQLException {
+        String sql = "UPDATE waitlist SET status = 'EXPIRED', updated_at = NOW() " +
+                    "WHERE status = 'WAITING' AND reservation_time < ?";
+        
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, before);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Book waitlist entries in one batch and mark the booked ones CONFIRMED
+     * Seatings are assigned in entry order by bookReservations. An entry that
+     * stopped WAITING while it was being booked (the customer left the
+     * waitlist, or another node confirmed it first) has its new booking
+     * cancelled again and its status set to CANCELLED, so callers stop
+     * offering it tables.
+     * @return one entry per request, in order; null where nothing was booked
+     */
+    public List<Reservation> confirmWaitlist(List<WaitlistEntry> entries) throws SQLException {
+        List<Reservation> requests = new ArrayList<>(entries.size());
+        for (WaitlistEntry entry : entries) {
+            requests.add(new Reservation(0, entry.getCustomerId(), 0,
+                entry.getReservationTime(), entry.getPartySize(),
+                ReservationStatus.CONFIRMED, entry.getSpecialRequests()));
+        }
+        List<Reservation> booked = new ArrayList<>(bookReservations(requests));
+        
+        String sql = "UPDATE waitlist SET status = 'CONFIRMED', reservation_id = ?, " +
+                    "updated_at = NOW() WHERE waitlist_id = ? AND status = 'WAITING'";
+        List<Integer> marked = new ArrayList<>();
+        List<Integer> lost = new ArrayList<>();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (booked.get(i) == null) continue;
+                stmt.setInt(1, booked.get(i).getReservationId());
+                stmt.setInt(2, entries.get(i).getWaitlistId());
+                stmt.addBatch();
+                marked.add(i);
+            }
+            if (!marked.isEmpty()) {
+                int[] counts = stmt.executeBatch();
+                for (int j = 0; j < counts.length; j++) {
+                    if (counts[j] == 0) lost.add(marked.get(j));
+                }
+            }
+        }
+        
+        for (int i : lost) {
+            cancelReservation(booked.get(i).getReservationId());
+            booked.set(i, null);
+            entries.get(i).setStatus(WaitlistStatus.CANCELLED);
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (booked.get(i) != null) {
+                entries.get(i).setStatus(WaitlistStatus.CONFIRMED);
+                entries.get(i).setReservationId(booked.get(i).getReservationId());
+            }
+        }
+        return booked;
     }
 
     // ==========================================
@@ -315,7 +1524,8 @@ public class DatabaseManager {
         String sql = "INSERT INTO customers (name, email, phone, created_at) " +
                     "VALUES (?, ?, ?, NOW())";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, customer.getName());
             stmt.setString(2, customer.getEmail());
             stmt.setString(3, customer.getPhone());
@@ -324,7 +1534,11 @@ public class DatabaseManager {
             
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
-                return rs.getInt(1);
+                int customerId = rs.getInt(1);
+                customerCache.put(customerId, new Customer(customerId,
+                    customer.getName(), customer.getEmail(), customer.getPhone()));
+                replicas.customerWritten(customerId);
+                return customerId;
             }
         }
         return -1;
@@ -332,21 +1546,23 @@ public class DatabaseManager {
 
     /**
      * Get customer by ID
+     * Read through the customer cache
      */
     public Customer getCustomerById(int customerId) throws SQLException {
-        String sql = "SELECT * FROM customers WHERE customer_id = ?";
+        return customerCache.get(customerId, this::queryCustomer);
+    }
+
+    private Customer queryCustomer(int customerId) throws SQLException {
+        String sql = SELECT_CUSTOMER + "WHERE customer_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection conn = replicas.getConnectionForCustomer(customerId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, customerId);
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return new Customer(
-                    rs.getInt("customer_id"),
-                    rs.getString("name"),
-                    rs.getString("email"),
-                    rs.getString("phone")
-                );
+                return new Customer(rs.getInt(1), rs.getString(2), rs.getString(3),
+                    rs.getString(4));
             }
         }
         return null;
@@ -358,86 +1574,298 @@ public class DatabaseManager {
 
     /**
      * Get restaurant statistics
+     * Dashboard figures come from the incrementally maintained tracker; a
+     * date range only adds one indexed count of reservations in that range
      */
     public RestaurantStatistics getStatistics(String startDate, String endDate) 
             throws SQLException {
-        RestaurantStatistics stats = new RestaurantStatistics();
+        ensureStatisticsLoaded();
+        RestaurantStatistics stats = statisticsTracker.snapshot();
         
-        // Total reservations
-        String sql1 = "SELECT COUNT(*) as total FROM reservations";
         if (startDate != null && endDate != null) {
-            sql1 += " WHERE DATE(reservation_time) BETWEEN ? AND ?";
+            String sql = "SELECT (SELECT COUNT(*) FROM reservations " +
+                        "WHERE reservation_time >= ? AND reservation_time < ?) + " +
+                        "(SELECT COUNT(*) FROM reservations_archive " +
+                        "WHERE reservation_time >= ? AND reservation_time < ?) as total";
+            
+            try (Connection conn = replicas.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                // Inclusive end date becomes an exclusive bound on the next day
+                LocalDateTime from = LocalDate.parse(startDate).atStartOfDay();
+                LocalDateTime to = LocalDate.parse(endDate).plusDays(1).atStartOfDay();
+                stmt.setObject(1, from);
+                stmt.setObject(2, to);
+                stmt.setObject(3, from);
+                stmt.setObject(4, to);
+                ResultSet rs = stmt.executeQuery();
+                if (rs.next()) {
+                    stats.setTotalReservations(rs.getInt("total"));
+                }
+            }
         }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql1)) {
-            if (startDate != null && endDate != null) {
-                stmt.setString(1, startDate);
-                stmt.setString(2, endDate);
+        return stats;
+    }
+
+    /**
+     * Reset the statistics tracker from the database
+     * One aggregate over reservations plus today's and future CONFIRMED times;
+     * archived reservations count towards the total
+     */
+    public void reconcileStatistics() throws SQLException {
+        String totalsSql = "SELECT COUNT(*) as total, " +
+                          "COALESCE(SUM(status = 'CONFIRMED'), 0) as confirmed, " +
+                          "COALESCE(SUM(CASE WHEN status = 'CONFIRMED' " +
+                          "THEN party_size END), 0) as guests, " +
+                          "(SELECT COUNT(*) FROM tables) as table_count, " +
+                          "(SELECT COUNT(*) FROM reservations_archive) as archived " +
+                          "FROM reservations";
+        
+        statisticsLoadLock.lock();
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Events committed while the totals are read are replayed onto them
+            statisticsTracker.beginLoad();
+            long total = 0, confirmed = 0, guests = 0;
+            int tables = 0;
+            try (ResultSet rs = stmt.executeQuery(totalsSql)) {
+                if (rs.next()) {
+                    total = rs.getLong("total") + rs.getLong("archived");
+                    confirmed = rs.getLong("confirmed");
+                    guests = rs.getLong("guests");
+                    tables = rs.getInt("table_count");
+                }
             }
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                stats.setTotalReservations(rs.getInt("total"));
+            
+            ReservationStore upcoming = loadConfirmedSince(
+                LocalDate.now().atStartOfDay(), false);
+            statisticsTracker.reset(total, confirmed, guests, tables, upcoming);
+        } finally {
+            statisticsTracker.endLoad();
+            statisticsLoadLock.unlock();
+        }
+    }
+
+    private void ensureStatisticsLoaded() throws SQLException {
+        if (!statisticsTracker.isLoaded()) {
+            statisticsLoadLock.lock();
+            try {
+                if (!statisticsTracker.isLoaded()) {
+                    reconcileStatistics();
+                }
+            } finally {
+                statisticsLoadLock.unlock();
             }
         }
-        
-        // Active reservations
-        String sql2 = "SELECT COUNT(*) as active FROM reservations " +
-                     "WHERE status = 'CONFIRMED' AND reservation_time > NOW()";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql2)) {
-            if (rs.next()) {
-                stats.setActiveReservations(rs.getInt("active"));
+    }
+
+    // ==========================================
+    // ARCHIVAL
+    // ==========================================
+
+    /**
+     * Move finished reservations from before the cutoff to
+     * reservations_archive in throttled chunks (see ReservationArchiver)
+     * Only COMPLETED, CANCELLED and NO_SHOW rows move, so the availability
+     * index and the statistics totals are unaffected
+     * @return number of reservations archived
+     */
+    public int archiveReservations(LocalDateTime before) throws SQLException {
+        try {
+            return archiver.archive(before);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Archival interrupted", e);
+        }
+    }
+
+    // ==========================================
+    // REPORTS
+    // ==========================================
+
+    /**
+     * Bookings, covers, cancellations, no-shows and utilization per day,
+     * week or month, read from the rollups (see ReportRollups) as they stand;
+     * changes reach them with the next scheduled flush, so a report may lag
+     * by up to restaurant.reports.flushSeconds
+     * @param tableId only this table; null for every table
+     * @param daypart ReportRollups.LUNCH or DINNER; null for the whole day
+     */
+    public List<ReportRollups.Period> getReport(ReportRollups.Granularity granularity,
+                                                LocalDate from, LocalDate to,
+                                                Integer tableId, Integer daypart)
+            throws SQLException {
+        return rows("getReport", rollups.report(granularity, from, to, tableId, daypart));
+    }
+
+    /**
+     * Recompute the rollups of [from, to] from live and archived reservations
+     * @return number of reservations read
+     */
+    public long backfillRollups(LocalDate from, LocalDate to) throws SQLException {
+        return rollups.backfill(from, to);
+    }
+
+    // ==========================================
+    // EVENTS
+    // ==========================================
+
+    private void fireReservationCreated(Reservation reservation) {
+        for (ReservationListener listener : listeners) {
+            try {
+                listener.reservationCreated(reservation);
+            } catch (RuntimeException e) {
+                log.error("Listener {} failed in reservationCreated",
+                    listener.getClass().getSimpleName(), e);
             }
         }
-        
-        // Average party size
-        String sql3 = "SELECT AVG(party_size) as avg_size FROM reservations " +
-                     "WHERE status = 'CONFIRMED'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql3)) {
-            if (rs.next()) {
-                stats.setAveragePartySize(rs.getDouble("avg_size"));
+    }
+
+    private void fireReservationUpdated(Reservation before, Reservation after) {
+        for (ReservationListener listener : listeners) {
+            try {
+                listener.reservationUpdated(before, after);
+            } catch (RuntimeException e) {
+                log.error("Listener {} failed in reservationUpdated",
+                    listener.getClass().getSimpleName(), e);
             }
         }
-        
-        // Table utilization
-        String sql4 = "SELECT " +
-                     "(SELECT COUNT(*) FROM reservations WHERE status = 'CONFIRMED' " +
-                     "AND DATE(reservation_time) = CURDATE()) * 100.0 / " +
-                     "(SELECT COUNT(*) * 13 FROM tables) as utilization";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql4)) {
-            if (rs.next()) {
-                stats.setTableUtilization(rs.getDouble("utilization"));
+    }
+
+    private void fireReservationCancelled(Reservation before) {
+        for (ReservationListener listener : listeners) {
+            try {
+                listener.reservationCancelled(before);
+            } catch (RuntimeException e) {
+                log.error("Listener {} failed in reservationCancelled",
+                    listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void fireTableStatusChanged(int tableId, TableStatus status) {
+        for (ReservationListener listener : listeners) {
+            try {
+                listener.tableStatusChanged(tableId, status);
+            } catch (RuntimeException e) {
+                log.error("Listener {} failed in tableStatusChanged",
+                    listener.getClass().getSimpleName(), e);
             }
         }
-        
-        return stats;
     }
 
     // ==========================================
     // UTILITY METHODS
     // ==========================================
 
-    private Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
-        return new Reservation(
-            rs.getInt("reservation_id"),
-            rs.getInt("customer_id"),
-            rs.getInt("table_id"),
-            rs.getTimestamp("reservation_time").toLocalDateTime(),
-            rs.getInt("party_size"),
-            rs.getString("status"),
-            rs.getString("special_requests")
+    private static <T extends List<?>> T rows(String method, T rows) {
+        Metrics.registry().increment(Metrics.DB_ROWS, "method", method, rows.size());
+        return rows;
+    }
+
+    private static Reservation withId(Reservation reservation, int reservationId) {
+        Reservation copy = new Reservation(reservationId, reservation.getCustomerId(),
+            reservation.getTableId(), reservation.getReservationTime(),
+            reservation.getPartySize(), reservation.getStatus(),
+            reservation.getSpecialRequests());
+        copy.setEndTime(reservation.getEndTime());
+        copy.setJoinedTableIds(reservation.getJoinedTableIds());
+        return copy;
+    }
+
+    /**
+     * The stored reservation with the editable fields taken from the request
+     */
+    private static Reservation movedTo(Reservation before, Reservation request) {
+        Reservation moved = new Reservation(before.getReservationId(), before.getCustomerId(),
+            request.getTableId(), request.getReservationTime(),
+            request.getPartySize(), before.getStatus(), request.getSpecialRequests());
+        moved.setEndTime(before.getEndTime());
+        moved.setJoinedTableIds(before.getJoinedTableIds());
+        return moved;
+    }
+
+    /**
+     * Map a row selected with SELECT_RESERVATION's column list
+     * Positional reads skip the driver's column-name lookup, and
+     * getObject(LocalDateTime) avoids the intermediate java.sql.Timestamp
+     */
+    static Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation(
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getInt(3),
+            rs.getObject(4, LocalDateTime.class),
+            rs.getInt(5),
+            ReservationStatus.fromIndex(rs.getInt(6)),
+            rs.getString(7)
         );
+        reservation.setEndTime(rs.getObject(8, LocalDateTime.class));
+        String joined = rs.getString(9);
+        if (joined != null) {
+            reservation.setJoinedTableIds(parseTableIds(joined));
+        }
+        return reservation;
+    }
+
+    /**
+     * Table ids from a GROUP_CONCAT list such as "3,4"
+     */
+    private static List<Integer> parseTableIds(String list) {
+        List<Integer> tableIds = new ArrayList<>();
+        for (String id : list.split(",")) {
+            tableIds.add(Integer.parseInt(id.trim()));
+        }
+        return tableIds;
+    }
+
+    /**
+     * Map a row selected with SELECT_WAITLIST's column list
+     */
+    private static WaitlistEntry mapWaitlistEntry(ResultSet rs) throws SQLException {
+        WaitlistEntry entry = new WaitlistEntry(rs.getInt(1), rs.getInt(2),
+            rs.getObject(3, LocalDateTime.class), rs.getInt(4), rs.getString(5),
+            WaitlistStatus.fromIndex(rs.getInt(6)));
+        entry.setReservationId(rs.getInt(7));
+        return entry;
+    }
+
+    /**
+     * Map a row selected with SELECT_TABLE's column list
+     */
+    private static Table mapTable(ResultSet rs) throws SQLException {
+        return new Table(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+            TableLocation.fromIndex(rs.getInt(4)), TableStatus.fromIndex(rs.getInt(5)));
+    }
+
+    public ConnectionPool.PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Health, lag and pool usage of each read replica
+     */
+    public List<ReplicaRouter.ReplicaStatus> getReplicaStatus() {
+        return replicas.getStatus();
+    }
+
+    public List<LruCache.CacheStats> getCacheStats() {
+        return List.of(customerCache.getStats(), tableCache.getStats());
     }
 
     public void close() {
+        maintenance.shutdownNow();
+        archiver.close();
+        rollups.close();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
+            rollups.flush();
         } catch (SQLException e) {
-            e.printStackTrace();
+            log.warn("Rollup flush on close failed", e);
+        }
+        if (journal != null) {
+            journal.close();
         }
+        replicas.close();
+        pool.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Table;
+import com.restaurant.model.TableLocation;
+import com.restaurant.model.TableStatus;
+import com.restaurant.model.TimeSlot;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One day's tables and CONFIRMED bookings, used to compute every time slot
+ * of the day in a single in-memory sweep instead of one lookup per slot.
+ * Bookings are stored as start/end minutes from midnight and may fall
+ * outside 0..1439 when they come from the neighbouring evening/morning.
+ */
+public class DaySchedule {
+
+    public static final int OPENING_HOUR = 9;
+    public static final int LAST_SEATING_HOUR = 21;
+
+    private static final Comparator<Table> SMALLEST_FIRST =
+        Comparator.comparingInt(Table::getCapacity).thenComparingInt(Table::getTableId);
+
+    private final LocalDate date;
+    private final List<Table> tables;
+    private final List<int[]> combinations;
+    private final TurnTimes turnTimes;
+    // Per table: start in the high and end in the low 32 bits, so sorting orders by start
+    private final Map<Integer, long[]> bookingMinutes = new HashMap<>();
+    private final Map<Integer, Integer> bookingCounts = new HashMap<>();
+
+    /**
+     * @param combinations table id sets that can be joined for larger
+     *                     parties, smallest capacity first
+     * @param turnTimes    how long each slot would hold its table
+     */
+    public DaySchedule(LocalDate date, List<Table> tables, List<int[]> combinations,
+                       TurnTimes turnTimes) {
+        this.date = date;
+        this.tables = new ArrayList<>(tables);
+        this.tables.sort(SMALLEST_FIRST);
+        this.combinations = combinations;
+        this.turnTimes = turnTimes;
+    }
+
+    public LocalDate getDate() { return date; }
+
+    /**
+     * Add a CONFIRMED booking; bookings that cannot reach the day are ignored
+     */
+    public void addBooking(int tableId, LocalDateTime start, LocalDateTime end) {
+        long startMinute = ChronoUnit.MINUTES.between(date.atStartOfDay(), start);
+        long endMinute = ChronoUnit.MINUTES.between(date.atStartOfDay(), end);
+        if (Math.abs(startMinute) < 2 * 24 * 60 && Math.abs(endMinute) < 2 * 24 * 60) {
+            addBooking(tableId, (int) startMinute, (int) endMinute);
+        }
+    }
+
+    /**
+     * Add a CONFIRMED booking given as minutes from this day's midnight
+     */
+    public void addBooking(int tableId, int startMinute, int endMinute) {
+        if (endMinute <= 0 || startMinute >= 24 * 60 + TurnTimes.MAX_TURN_MINUTES) {
+            return;
+        }
+        int count = bookingCounts.getOrDefault(tableId, 0);
+        long[] minutes = bookingMinutes.get(tableId);
+        if (minutes == null) {
+            minutes = new long[4];
+        } else if (count == minutes.length) {
+            minutes = Arrays.copyOf(minutes, count * 2);
+        }
+        minutes[count] = ((long) startMinute << 32) | (endMinute & 0xFFFFFFFFL);
+        bookingMinutes.put(tableId, minutes);
+        bookingCounts.put(tableId, count + 1);
+    }
+
+    /**
+     * Receives slots in time order as minutes from midnight; return false to
+     * stop the sweep
+     */
+    public interface SlotVisitor {
+        boolean visit(int minute, int tableNumber);
+    }
+
+    /**
+     * Compute every slot from opening to last seating at the given granularity
+     * Each slot reports the smallest AVAILABLE table with enough capacity and
+     * no booking overlapping the party's turn from that slot; when no single
+     * table fits, the first free combination of joined tables, by its first table
+     */
+    public List<TimeSlot> availableSlots(int partySize, int granularityMinutes) {
+        List<TimeSlot> slots = new ArrayList<>();
+        LocalDateTime midnight = date.atStartOfDay();
+        sweep(partySize, granularityMinutes, OPENING_HOUR * 60, LAST_SEATING_HOUR * 60, null,
+            (minute, tableNumber) -> slots.add(new TimeSlot(
+                midnight.plusMinutes(minute),
+                tableNumber != -1,
+                tableNumber
+            )));
+        return slots;
+    }
+
+    /**
+     * Visit the free slots from fromMinute to toMinute (minutes from
+     * midnight, inclusive, clamped to opening and last seating) in time
+     * order, on the same grid as availableSlots; with a location only the
+     * tables there are considered
+     */
+    public void forEachFreeSlot(int partySize, int granularityMinutes, int fromMinute,
+                                int toMinute, TableLocation location, SlotVisitor visitor) {
+        sweep(partySize, granularityMinutes, fromMinute, toMinute, location,
+            (minute, tableNumber) -> tableNumber == -1 || visitor.visit(minute, tableNumber));
+    }
+
+    /**
+     * Visit every slot in the window, with -1 when no table is free
+     */
+    private void sweep(int partySize, int granularityMinutes, int fromMinute, int toMinute,
+                       TableLocation location, SlotVisitor visitor) {
+        // AVAILABLE tables, smallest first, with their bookings sorted by start
+        Map<Integer, Integer> positions = new HashMap<>();
+        List<Table> available = new ArrayList<>();
+        List<int[]> availableStarts = new ArrayList<>();
+        List<int[]> availableEnds = new ArrayList<>();
+        for (Table table : tables) {
+            if (table.getStatus() != TableStatus.AVAILABLE) continue;
+            if (location != null && table.getLocation() != location) continue;
+            int count = bookingCounts.getOrDefault(table.getTableId(), 0);
+            long[] minutes = count == 0 ? new long[0]
+                : Arrays.copyOf(bookingMinutes.get(table.getTableId()), count);
+            Arrays.sort(minutes);
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            for (int j = 0; j < count; j++) {
+                starts[j] = (int) (minutes[j] >> 32);
+                ends[j] = (int) minutes[j];
+            }
+            positions.put(table.getTableId(), available.size());
+            available.add(table);
+            availableStarts.add(starts);
+            availableEnds.add(ends);
+        }
+
+        // Seating options in preference order, as positions into available
+        List<int[]> options = new ArrayList<>();
+        for (int i = 0; i < available.size(); i++) {
+            if (available.get(i).getCapacity() >= partySize) {
+                options.add(new int[] {i});
+            }
+        }
+        for (int[] tableIds : combinations) {
+            int[] members = new int[tableIds.length];
+            int capacity = 0;
+            for (int j = 0; j < tableIds.length && members != null; j++) {
+                Integer position = positions.get(tableIds[j]);
+                if (position == null) {
+                    members = null;
+                } else {
+                    members[j] = position;
+                    capacity += available.get(position).getCapacity();
+                }
+            }
+            if (members != null && capacity >= partySize) {
+                options.add(members);
+            }
+        }
+
+        // Per-table cursor: first booking that could still block a later slot
+        int[] cursors = new int[available.size()];
+        boolean[] free = new boolean[available.size()];
+        // First slot of the grid from opening at or after fromMinute
+        int first = OPENING_HOUR * 60 + Math.max(0,
+            Math.floorDiv(fromMinute - OPENING_HOUR * 60 + granularityMinutes - 1,
+                granularityMinutes) * granularityMinutes);
+        int last = Math.min(toMinute, LAST_SEATING_HOUR * 60);
+
+        for (int minute = first; minute <= last; minute += granularityMinutes) {
+            int end = minute + turnTimes.turnMinutes(partySize, minute);
+            for (int i = 0; i < available.size(); i++) {
+                int[] starts = availableStarts.get(i);
+                int[] ends = availableEnds.get(i);
+                int cursor = cursors[i];
+                while (cursor < starts.length
+                        && starts[cursor] + TurnTimes.MAX_TURN_MINUTES <= minute) {
+                    cursor++;
+                }
+                cursors[i] = cursor;
+                boolean tableFree = true;
+                for (int j = cursor; j < starts.length && starts[j] < end && tableFree; j++) {
+                    tableFree = ends[j] <= minute;
+                }
+                free[i] = tableFree;
+            }
+
+            int tableNumber = -1;
+            for (int[] option : options) {
+                boolean allFree = true;
+                for (int member : option) {
+                    allFree &= free[member];
+                }
+                if (allFree) {
+                    tableNumber = available.get(option[0]).getTableNumber();
+                    break;
+                }
+            }
+            if (!visitor.visit(minute, tableNumber)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.restaurant.database;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics registry for Restaurant Reservation System
+ * Latency histograms and counters keyed by metric family and one label,
+ * exported in the Prometheus text format by /api/admin/metrics.
+ * Lookups are a ConcurrentHashMap get; recording never locks.
+ */
+public final class Metrics {
+
+    public static final String HTTP_REQUESTS = "restaurant_http_request_seconds";
+    public static final String HTTP_ERRORS = "restaurant_http_errors_total";
+    public static final String DB_ROWS = "restaurant_db_rows_total";
+    public static final String DB_STATEMENTS = "restaurant_db_statement_seconds";
+    public static final String DB_SLOW_STATEMENTS = "restaurant_db_slow_statements_total";
+    public static final String DB_ACQUIRE = "restaurant_db_acquire_seconds";
+    public static final String DB_READS = "restaurant_db_reads_total";
+    public static final String WAITLIST = "restaurant_waitlist_entries_total";
+    public static final String ARCHIVED = "restaurant_archived_rows_total";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final Metrics REGISTRY = new Metrics();
+
+    private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static Metrics registry() {
+        return REGISTRY;
+    }
+
+    public LatencyHistogram histogram(String family, String label, String value) {
+        return histograms.computeIfAbsent(new Key(family, label, value), k -> new LatencyHistogram());
+    }
+
+    public void increment(String family, String label, String value, long delta) {
+        counters.computeIfAbsent(new Key(family, label, value), k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Append every metric in the Prometheus text exposition format
+     * Histograms are written as summaries (quantiles, _sum, _count), each
+     * followed by a <family>_max gauge family
+     */
+    public void writePrometheus(StringBuilder out) {
+        Map<String, Map<Key, LatencyHistogram>> byFamily = new TreeMap<>();
+        for (Map.Entry<Key, LatencyHistogram> entry : histograms.entrySet()) {
+            byFamily.computeIfAbsent(entry.getKey().family, f -> new TreeMap<>())
+                .put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Map<Key, LatencyHistogram>> summary : byFamily.entrySet()) {
+            String family = summary.getKey();
+            out.append("# TYPE ").append(family).append(" summary\n");
+            for (Map.Entry<Key, LatencyHistogram> entry : summary.getValue().entrySet()) {
+                Key key = entry.getKey();
+                LatencyHistogram histogram = entry.getValue();
+                for (double quantile : QUANTILES) {
+                    sample(out, family, key, "quantile=\"" + quantile + "\"",
+                        histogram.getQuantileSeconds(quantile));
+                }
+                sample(out, family + "_sum", key, null, histogram.getSumSeconds());
+                sample(out, family + "_count", key, null, histogram.getCount());
+            }
+            // _max is not a summary suffix, so it is a family of its own
+            out.append("# TYPE ").append(family).append("_max gauge\n");
+            for (Map.Entry<Key, LatencyHistogram> entry : summary.getValue().entrySet()) {
+                sample(out, family + "_max", entry.getKey(), null,
+                    entry.getValue().getMaxSeconds());
+            }
+        }
+        String family = null;
+        for (Map.Entry<Key, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            Key key = entry.getKey();
+            if (!key.family.equals(family)) {
+                family = key.family;
+                out.append("# TYPE ").append(family).append(" counter\n");
+            }
+            sample(out, key.family, key, null, entry.getValue().sum());
+        }
+    }
+
+    /**
+     * Append a single unlabelled counter; name should end in _total
+     */
+    public static void writeCounter(StringBuilder out, String name, double value) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ');
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    /**
+     * Append a single unlabelled gauge
+     */
+    public static void writeGauge(StringBuilder out, String name, double value) {
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ');
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, Key key, String extra, double value) {
+        out.append(name);
+        if (key.label != null || extra != null) {
+            out.append('{');
+            if (key.label != null) {
+                out.append(key.label).append("=\"").append(escape(key.value)).append('"');
+                if (extra != null) out.append(',');
+            }
+            if (extra != null) out.append(extra);
+            out.append('}');
+        }
+        out.append(' ');
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    private static void appendValue(StringBuilder out, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // ==========================================
+    // METRIC KEYS
+    // ==========================================
+
+    private record Key(String family, String label, String value) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byFamily = family.compareTo(other.family);
+            if (byFamily != 0) return byFamily;
+            return String.valueOf(value).compareTo(String.valueOf(other.value));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.restaurant.api;
+
+import com.restaurant.database.DatabaseManager;
+import com.restaurant.database.ReservationCursor;
+import com.restaurant.database.Settings;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.TimeSlot;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.SQLException;
+
+/**
+ * Non-blocking variant of the polling endpoints used by the mobile clients
+ * Handlers return Reactor types and never block a request thread: the JDBC
+ * work in DatabaseManager runs on a bounded scheduler sized to the connection
+ * pool, and list endpoints read rows only as fast as the client takes them.
+ * Streaming needs Accept: application/x-ndjson; other media types receive
+ * the collected JSON array.
+ */
+@RestController
+@RequestMapping("/api/rx")
+@CrossOrigin(origins = "*")
+public class ReactiveReservationAPI implements DisposableBean {
+
+    // Rows requested from a cursor per downstream demand batch
+    private static final int PREFETCH = 64;
+
+    private final DatabaseManager dbManager;
+    private final Scheduler jdbcScheduler;
+
+    public ReactiveReservationAPI(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        // One worker per pooled connection; excess work queues instead of
+        // piling up threads that would only wait for a connection
+        this.jdbcScheduler = Schedulers.newBoundedElastic(
+            Settings.getInt("restaurant.db.pool.maxSize", 20),
+            Settings.getInt("restaurant.rx.queueCapacity", 10000),
+            "restaurant-jdbc"
+        );
+    }
+
+    /**
+     * Available time slots for a date, same parameters as /api/availability
+     */
+    @GetMapping(value = "/availability",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<TimeSlot> checkAvailability(
+            @RequestParam String date,
+            @RequestParam int partySize,
+            @RequestParam(defaultValue = "60") int granularity) {
+        if (granularity != 15 && granularity != 30 && granularity != 60) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+        return Mono.fromCallable(() -> dbManager.getAvailableTimeSlots(date, partySize, granularity))
+            .subscribeOn(jdbcScheduler)
+            .flatMapIterable(slots -> slots);
+    }
+
+    /**
+     * A customer's reservations, newest first, read in chunks as the
+     * subscriber requests them; no connection is held between chunks
+     */
+    @GetMapping(value = "/customer/{customerId}/reservations",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Reservation> getCustomerReservations(@PathVariable int customerId) {
+        return Flux.<Reservation, ReservationCursor>generate(
+                () -> dbManager.openReservationCursorByCustomerId(customerId),
+                ReactiveReservationAPI::next)
+            .subscribeOn(jdbcScheduler)
+            .limitRate(PREFETCH);
+    }
+
+    private static ReservationCursor next(ReservationCursor cursor,
+                                          SynchronousSink<Reservation> sink) {
+        try {
+            Reservation next = cursor.next();
+            if (next != null) {
+                sink.next(next);
+            } else {
+                sink.complete();
+            }
+        } catch (SQLException e) {
+            sink.error(e);
+        }
+        return cursor;
+    }
+
+    @Override
+    public void destroy() {
+        jdbcScheduler.dispose();
+    }
+}
@@ -0,0 +1,256 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+import com.restaurant.model.TableStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read routing to MySQL replicas
+ * Read-only DatabaseManager calls borrow their connection here: a healthy
+ * replica in round-robin order, or the primary when none qualifies. Writes
+ * always use the primary pool directly.
+ *
+ * Lag is measured with a heartbeat: every beatMs this node writes the
+ * current time to its own replication_heartbeat row on the primary and
+ * reads the row back from each replica. A replica whose last replicated
+ * beat is older than maxLagMs, or that cannot be reached, takes no reads
+ * until it catches up.
+ *
+ * Read-your-writes: after a customer's reservation or profile changes, their
+ * reads only go to a replica that has replicated a beat written after the
+ * change, so they always see their own booking; the table layout is
+ * handled the same way after a status change. Other reads (admin listings,
+ * reports) may trail the primary by up to maxLagMs.
+ *
+ * With no replicas configured every read uses the primary and nothing is
+ * tracked.
+ */
+public class ReplicaRouter implements ReservationListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    // Identifies this node's heartbeat row
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    // Commit time of each customer's last write, until every replica has it
+    private final Map<Integer, Long> customerWrites = new ConcurrentHashMap<>();
+    private final AtomicLong tablesWrite = new AtomicLong();
+    private final ScheduledExecutorService monitor;
+
+    public ReplicaRouter(ConnectionPool primary, List<ConnectionPool> replicaPools) {
+        this.primary = primary;
+        this.maxLagMillis = Settings.getLong("restaurant.db.replica.maxLagMs", 5000);
+        for (ConnectionPool pool : replicaPools) {
+            replicas.add(new Replica(pool));
+        }
+        if (replicas.isEmpty()) {
+            this.monitor = null;
+            return;
+        }
+        this.monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long beatMillis = Settings.getLong("restaurant.db.replica.beatMs", 1000);
+        monitor.scheduleWithFixedDelay(this::beat, 0, beatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Connection for a read that may trail the primary by up to maxLagMs
+     */
+    public Connection getConnection() throws SQLException {
+        return route(0);
+    }
+
+    /**
+     * Connection for a read of one customer's data; includes their own writes
+     */
+    public Connection getConnectionForCustomer(int customerId) throws SQLException {
+        if (replicas.isEmpty()) return primary.getConnection();
+        Long written = customerWrites.get(customerId);
+        return route(written != null ? written : 0);
+    }
+
+    /**
+     * Connection for a read of the table layout; includes status changes
+     * made on this node
+     */
+    public Connection getConnectionForTables() throws SQLException {
+        return route(tablesWrite.get());
+    }
+
+    /**
+     * A replica that has replicated a beat written after writtenAt, or the
+     * primary
+     */
+    private Connection route(long writtenAt) throws SQLException {
+        if (replicas.isEmpty()) return primary.getConnection();
+
+        long now = System.currentTimeMillis();
+        int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+        boolean anyHealthy = false;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((first + i) % replicas.size());
+            long beat = replica.replicatedBeat;
+            if (now - beat > maxLagMillis) continue;
+            anyHealthy = true;
+            if (beat <= writtenAt) continue;
+            try {
+                Connection connection = replica.pool.getConnection();
+                count("replica");
+                return connection;
+            } catch (SQLException e) {
+                // Pool exhausted or replica down; the next beat marks it unhealthy
+                log.debug("Replica {} unavailable", replica.pool.getName(), e);
+            }
+        }
+        count(anyHealthy ? "sticky" : "lagging");
+        return primary.getConnection();
+    }
+
+    private static void count(String target) {
+        Metrics.registry().increment(Metrics.DB_READS, "target", target, 1);
+    }
+
+    // ==========================================
+    // HEARTBEAT
+    // ==========================================
+
+    private void beat() {
+        long now = System.currentTimeMillis();
+        try (Connection conn = primary.getConnection()) {
+            int updated;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE replication_heartbeat SET beat_millis = ? WHERE node = ?")) {
+                stmt.setLong(1, now);
+                stmt.setString(2, NODE);
+                updated = stmt.executeUpdate();
+            }
+            if (updated == 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO replication_heartbeat (node, beat_millis) VALUES (?, ?)")) {
+                    stmt.setString(1, NODE);
+                    stmt.setLong(2, now);
+                    stmt.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Replication heartbeat write failed", e);
+        }
+
+        long oldest = Long.MAX_VALUE;
+        for (Replica replica : replicas) {
+            try (Connection conn = replica.pool.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT beat_millis FROM replication_heartbeat WHERE node = ?")) {
+                stmt.setString(1, NODE);
+                ResultSet rs = stmt.executeQuery();
+                if (rs.next()) {
+                    replica.replicatedBeat = rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                replica.replicatedBeat = 0;
+                log.warn("Replica {} lag check failed", replica.pool.getName(), e);
+            }
+            oldest = Math.min(oldest, replica.replicatedBeat);
+        }
+
+        // Writes every replica has, or that any replica healthy from now on
+        // must have, need no stickiness
+        long replicated = Math.max(oldest, now - maxLagMillis);
+        customerWrites.values().removeIf(written -> written < replicated);
+    }
+
+    // ==========================================
+    // WRITES
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        customerWritten(reservation.getCustomerId());
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        customerWritten(after.getCustomerId());
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        customerWritten(before.getCustomerId());
+    }
+
+    @Override
+    public void tableStatusChanged(int tableId, TableStatus status) {
+        if (!replicas.isEmpty()) {
+            tablesWrite.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Record a committed change to the customer's data
+     */
+    public void customerWritten(int customerId) {
+        if (!replicas.isEmpty()) {
+            customerWrites.put(customerId, System.currentTimeMillis());
+        }
+    }
+
+    public List<ReplicaStatus> getStatus() {
+        long now = System.currentTimeMillis();
+        List<ReplicaStatus> status = new ArrayList<>();
+        for (Replica replica : replicas) {
+            long lag = now - replica.replicatedBeat;
+            status.add(new ReplicaStatus(replica.pool.getName(), lag <= maxLagMillis,
+                replica.replicatedBeat == 0 ? -1 : lag, replica.pool.getStats()));
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * @param lagMillis age of the last replicated beat; -1 before the first one
+     */
+    public record ReplicaStatus(String name, boolean healthy, long lagMillis,
+                                ConnectionPool.PoolStats pool) {}
+
+    private static final class Replica {
+        final ConnectionPool pool;
+        // Last heartbeat of this node seen on the replica; 0 when unknown
+        volatile long replicatedBeat;
+
+        Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+    }
+}
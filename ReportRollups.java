@@ -0,0 +1,447 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reporting rollups: bookings, covers, cancellations, no-shows and booked
+ * table minutes per (day, table, daypart) in reservation_rollups
+ * Committed changes are turned into deltas in memory and added to the rows
+ * by flush() in one batched upsert, so a write costs the booking path no
+ * extra statement; each node adds its own deltas. Reports sum the rows of
+ * their date range, so their cost depends on the number of days and tables,
+ * not on the number of reservations.
+ * A reservation counts on the day and daypart it starts: bookings and
+ * covers on its first table, booked minutes on every table it holds.
+ * backfill() recomputes a date range from live and archived reservations.
+ * Every night at 03:00 the last restaurant.reports.rebuildDays days are
+ * recomputed on a thread of their own, which also picks up changes made
+ * directly in MySQL.
+ */
+public class ReportRollups implements ReservationListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportRollups.class);
+
+    public static final int LUNCH = 0;
+    public static final int DINNER = 1;
+
+    private static final String UPSERT =
+        "INSERT INTO reservation_rollups (rollup_date, table_id, daypart, bookings, covers, " +
+        "cancellations, no_shows, booked_minutes) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE bookings = bookings + VALUES(bookings), " +
+        "covers = covers + VALUES(covers), " +
+        "cancellations = cancellations + VALUES(cancellations), " +
+        "no_shows = no_shows + VALUES(no_shows), " +
+        "booked_minutes = booked_minutes + VALUES(booked_minutes)";
+    private static final String RESERVATIONS_SINCE =
+        "WHERE reservation_time >= ? AND reservation_time < ?";
+    private static final int BATCH_SIZE = 500;
+    private static final LocalTime REBUILD_AT = LocalTime.of(3, 0);
+
+    private final ConnectionPool pool;
+    private final ReplicaRouter replicas;
+    private final int dinnerFromHour;
+
+    // Deltas not yet written; swapped out whole by flush()
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Map<Key, int[]> pending = new HashMap<>();
+    // One writer at a time: flush() or a backfill
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private record Key(LocalDate date, int tableId, int daypart) {}
+
+    // Positions in a delta
+    private static final int BOOKINGS = 0;
+    private static final int COVERS = 1;
+    private static final int CANCELLATIONS = 2;
+    private static final int NO_SHOWS = 3;
+    private static final int BOOKED_MINUTES = 4;
+
+    /**
+     * Totals for one report period, which may be cut short by the report's
+     * date range
+     * @param utilization booked table minutes over the service minutes of
+     *                    every table in the period
+     */
+    public record Period(LocalDate start, LocalDate end, int bookings, int covers,
+                         int cancellations, int noShows, long bookedMinutes,
+                         double utilization) {}
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    public ReportRollups(ConnectionPool pool, ReplicaRouter replicas) {
+        this.pool = pool;
+        this.replicas = replicas;
+        this.dinnerFromHour = Settings.getInt("restaurant.reports.dinnerFromHour", 16);
+
+        int rebuildDays = Settings.getInt("restaurant.reports.rebuildDays", 2);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-rollups");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextRun = now.toLocalDate().atTime(REBUILD_AT);
+        if (!nextRun.isAfter(now)) {
+            nextRun = nextRun.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                backfill(LocalDate.now().minusDays(rebuildDays), LocalDate.now());
+            } catch (SQLException e) {
+                log.warn("Rollup rebuild failed", e);
+            }
+        }, Duration.between(now, nextRun).toMinutes(), TimeUnit.DAYS.toMinutes(1),
+            TimeUnit.MINUTES);
+    }
+
+    // ==========================================
+    // EVENTS
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        pendingLock.lock();
+        try {
+            add(pending, reservation, reservation.getStatus(), 1);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        pendingLock.lock();
+        try {
+            add(pending, before, before.getStatus(), -1);
+            add(pending, after, after.getStatus(), 1);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        pendingLock.lock();
+        try {
+            add(pending, before, before.getStatus(), -1);
+            add(pending, before, ReservationStatus.CANCELLED, 1);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Add the reservation's contribution, as if it had the given status,
+     * sign times to the totals
+     */
+    private void add(Map<Key, int[]> totals, Reservation reservation, ReservationStatus status,
+                     int sign) {
+        LocalDateTime start = reservation.getReservationTime();
+        int daypart = daypartOf(start);
+        int[] first = totals.computeIfAbsent(
+            new Key(start.toLocalDate(), reservation.getTableId(), daypart), k -> new int[5]);
+        first[BOOKINGS] += sign;
+        switch (status) {
+            case CANCELLED -> first[CANCELLATIONS] += sign;
+            case NO_SHOW -> first[NO_SHOWS] += sign;
+            default -> {
+                // CONFIRMED or COMPLETED: the party holds its tables
+                first[COVERS] += sign * reservation.getPartySize();
+                int minutes = (int) ChronoUnit.MINUTES.between(start, reservation.getEndTime());
+                for (int tableId : AvailabilityIndex.tableIdsOf(reservation)) {
+                    totals.computeIfAbsent(new Key(start.toLocalDate(), tableId, daypart),
+                        k -> new int[5])[BOOKED_MINUTES] += sign * minutes;
+                }
+            }
+        }
+    }
+
+    private int daypartOf(LocalDateTime time) {
+        return time.getHour() < dinnerFromHour ? LUNCH : DINNER;
+    }
+
+    // ==========================================
+    // WRITES
+    // ==========================================
+
+    /**
+     * Add the pending deltas to reservation_rollups in one transaction; on
+     * failure they are kept for the next flush
+     */
+    public void flush() throws SQLException {
+        writeLock.lock();
+        try {
+            Map<Key, int[]> deltas;
+            pendingLock.lock();
+            try {
+                if (pending.isEmpty()) return;
+                deltas = pending;
+                pending = new HashMap<>();
+            } finally {
+                pendingLock.unlock();
+            }
+
+            try (Connection conn = pool.getConnection()) {
+                // All or nothing, so deltas kept after a failure are not added twice
+                conn.setAutoCommit(false);
+                try {
+                    write(conn, deltas);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                pendingLock.lock();
+                try {
+                    deltas.forEach((key, delta) -> {
+                        int[] merged = pending.computeIfAbsent(key, k -> new int[5]);
+                        for (int i = 0; i < merged.length; i++) {
+                            merged[i] += delta[i];
+                        }
+                    });
+                } finally {
+                    pendingLock.unlock();
+                }
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Recompute the rollups of [from, to] from the live and archived
+     * reservations, one month per transaction
+     * Deltas of changes committed while a month is recomputed can be
+     * counted twice, so run it on past dates or in a quiet period.
+     * @return number of reservations read
+     */
+    public long backfill(LocalDate from, LocalDate to) throws SQLException {
+        long start = System.nanoTime();
+        long reservations = 0;
+        for (LocalDate month = from; !month.isAfter(to);
+                month = month.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate end = month.withDayOfMonth(1).plusMonths(1);
+            if (end.isAfter(to)) end = to.plusDays(1);
+            reservations += rebuild(month, end);
+        }
+        log.info("Backfilled reservation rollups {} to {} from {} reservations in {} ms",
+            from, to, reservations, (System.nanoTime() - start) / 1_000_000);
+        return reservations;
+    }
+
+    /**
+     * Replace the rollups of [from, to) in one transaction
+     */
+    private int rebuild(LocalDate from, LocalDate to) throws SQLException {
+        writeLock.lock();
+        try {
+            flush();
+            Map<Key, int[]> totals = new HashMap<>();
+            int reservations = 0;
+
+            try (Connection conn = pool.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    for (String select : new String[] {DatabaseManager.SELECT_RESERVATION,
+                            DatabaseManager.SELECT_ARCHIVED_RESERVATION}) {
+                        try (PreparedStatement stmt = conn.prepareStatement(
+                                select + RESERVATIONS_SINCE)) {
+                            stmt.setObject(1, from.atStartOfDay());
+                            stmt.setObject(2, to.atStartOfDay());
+                            ResultSet rs = stmt.executeQuery();
+
+                            while (rs.next()) {
+                                Reservation reservation =
+                                    DatabaseManager.mapResultSetToReservation(rs);
+                                add(totals, reservation, reservation.getStatus(), 1);
+                                reservations++;
+                            }
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "DELETE FROM reservation_rollups " +
+                            "WHERE rollup_date >= ? AND rollup_date < ?")) {
+                        stmt.setObject(1, from);
+                        stmt.setObject(2, to);
+                        stmt.executeUpdate();
+                    }
+                    write(conn, totals);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+            return reservations;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void write(Connection conn, Map<Key, int[]> deltas) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+            int batched = 0;
+            for (Map.Entry<Key, int[]> entry : deltas.entrySet()) {
+                Key key = entry.getKey();
+                int[] delta = entry.getValue();
+                stmt.setObject(1, key.date());
+                stmt.setInt(2, key.tableId());
+                stmt.setInt(3, key.daypart());
+                for (int i = 0; i < delta.length; i++) {
+                    stmt.setInt(4 + i, delta[i]);
+                }
+                stmt.addBatch();
+                if (++batched % BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // ==========================================
+    // REPORTS
+    // ==========================================
+
+    /**
+     * Totals per day, ISO week or calendar month over [from, to]
+     * @param tableId only this table; null for every table
+     * @param daypart LUNCH or DINNER only; null for the whole day
+     */
+    public List<Period> report(Granularity granularity, LocalDate from, LocalDate to,
+                               Integer tableId, Integer daypart) throws SQLException {
+        String sql = "SELECT rollup_date, SUM(bookings), SUM(covers), SUM(cancellations), " +
+                    "SUM(no_shows), SUM(booked_minutes) FROM reservation_rollups " +
+                    "WHERE rollup_date >= ? AND rollup_date <= ? " +
+                    "AND (? IS NULL OR table_id = ?) AND (? IS NULL OR daypart = ?) " +
+                    "GROUP BY rollup_date";
+        // Per period start: bookings, covers, cancellations, no-shows, minutes
+        Map<LocalDate, long[]> sums = new TreeMap<>();
+        int tables;
+
+        try (Connection conn = replicas.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setObject(1, from);
+                stmt.setObject(2, to);
+                stmt.setObject(3, tableId);
+                stmt.setObject(4, tableId);
+                stmt.setObject(5, daypart);
+                stmt.setObject(6, daypart);
+                ResultSet rs = stmt.executeQuery();
+
+                while (rs.next()) {
+                    long[] sum = sums.computeIfAbsent(
+                        periodStart(granularity, rs.getObject(1, LocalDate.class)),
+                        k -> new long[5]);
+                    for (int i = 0; i < sum.length; i++) {
+                        sum[i] += rs.getLong(2 + i);
+                    }
+                }
+            }
+            tables = tableId != null ? 1 : countTables(conn);
+        }
+
+        int serviceMinutes = serviceMinutes(daypart);
+        List<Period> periods = new ArrayList<>();
+        for (LocalDate start = periodStart(granularity, from); !start.isAfter(to);
+                start = nextPeriod(granularity, start)) {
+            LocalDate first = start.isBefore(from) ? from : start;
+            LocalDate last = nextPeriod(granularity, start).minusDays(1);
+            if (last.isAfter(to)) last = to;
+            long[] sum = sums.getOrDefault(start, new long[5]);
+            long available = (ChronoUnit.DAYS.between(first, last) + 1) * tables * serviceMinutes;
+            periods.add(new Period(first, last, (int) sum[BOOKINGS], (int) sum[COVERS],
+                (int) sum[CANCELLATIONS], (int) sum[NO_SHOWS], sum[BOOKED_MINUTES],
+                available > 0 ? (double) sum[BOOKED_MINUTES] / available : 0));
+        }
+        return periods;
+    }
+
+    private static int countTables(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM tables")) {
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Minutes a table can be in use: from opening until the last seating's
+     * default turn ends, split at dinnerFromHour
+     */
+    private int serviceMinutes(Integer daypart) {
+        int opening = DaySchedule.OPENING_HOUR * 60;
+        int dinner = dinnerFromHour * 60;
+        int close = DaySchedule.LAST_SEATING_HOUR * 60 + TurnTimes.DEFAULT_TURN_MINUTES;
+        if (daypart == null) return close - opening;
+        return daypart == LUNCH ? dinner - opening : close - dinner;
+    }
+
+    private static LocalDate periodStart(Granularity granularity, LocalDate date) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static LocalDate nextPeriod(Granularity granularity, LocalDate start) {
+        return switch (granularity) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Backfill command for existing data:
+     *   ReportRollups <fromDate> <toDate>
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ReportRollups <fromDate> <toDate>");
+            System.exit(2);
+        }
+        try (ConnectionPool pool = ConnectionPool.fromEnvironment();
+             ReplicaRouter replicas = new ReplicaRouter(pool, List.of());
+             ReportRollups rollups = new ReportRollups(pool, replicas)) {
+            long reservations = rollups.backfill(LocalDate.parse(args[0]),
+                LocalDate.parse(args[1]));
+            System.out.printf("rolled up %d reservations%n", reservations);
+        }
+    }
+}
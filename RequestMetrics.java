@@ -0,0 +1,58 @@
+package com.restaurant.api;
+
+import com.restaurant.database.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-endpoint request latency for every /api handler
+ * Requests are labelled by HTTP method and route pattern
+ * ("GET /api/reservations/{reservationId}"), never the raw path, so the
+ * number of histograms stays fixed. Async handlers are timed from the
+ * first dispatch to completion; SSE streams are not timed.
+ */
+@Configuration
+public class RequestMetrics implements WebMvcConfigurer, HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RequestMetrics.class.getName() + ".start";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // Async dispatches run preHandle again; keep the original start
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+            Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        String contentType = response.getContentType();
+        if (start == null || (contentType != null
+                && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE))) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "unmatched");
+        Metrics metrics = Metrics.registry();
+        metrics.histogram(Metrics.HTTP_REQUESTS, "endpoint", endpoint).recordSince((Long) start);
+        if (ex != null || response.getStatus() >= 500) {
+            metrics.increment(Metrics.HTTP_ERRORS, "endpoint", endpoint, 1);
+        }
+    }
+}
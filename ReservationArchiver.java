@@ -0,0 +1,266 @@
+package com.restaurant.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves finished reservations (COMPLETED, CANCELLED, NO_SHOW) older than a
+ * cutoff from reservations to reservations_archive
+ * Rows move in chunks of chunkSize in reservation_id order. Each chunk is
+ * one short transaction that copies and deletes an id range known to hold
+ * at most chunkSize rows, so only that range is locked and bookings are
+ * never stalled behind a table-wide DELETE. Between chunks the job pauses
+ * for pauseMs, or as long as the chunk took if that is longer, so it uses at
+ * most half of one connection's time.
+ *
+ * The archive is partitioned by month of reservation_time. Partitions up to
+ * the cutoff's month are split off the catch-all partition before rows are
+ * moved, and with retentionMonths set, months older than that are dropped
+ * as whole partitions. Neither step runs on an unpartitioned archive.
+ *
+ * With restaurant.archive.daysOld set the job runs every
+ * restaurant.archive.intervalHours; it can always be run on demand.
+ */
+public class ReservationArchiver implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiver.class);
+
+    private static final String FINISHED = "status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW') ";
+    private static final String NEXT_CHUNK =
+        "SELECT reservation_id FROM reservations " +
+        "WHERE reservation_id > ? AND reservation_time < ? AND " + FINISHED +
+        "ORDER BY reservation_id LIMIT ?";
+    // Joined tables are kept as the same comma-separated list SELECT_RESERVATION reads
+    private static final String COPY_CHUNK =
+        "INSERT INTO reservations_archive (reservation_id, customer_id, table_id, " +
+        "reservation_time, end_time, party_size, status, special_requests, joined_table_ids, " +
+        "created_at, updated_at) " +
+        "SELECT reservation_id, customer_id, table_id, reservation_time, end_time, " +
+        "party_size, status, special_requests, " +
+        "(SELECT GROUP_CONCAT(rt.table_id ORDER BY rt.table_id) FROM reservation_tables rt " +
+        "WHERE rt.reservation_id = reservations.reservation_id), created_at, updated_at " +
+        "FROM reservations " +
+        "WHERE reservation_id > ? AND reservation_id <= ? AND reservation_time < ? AND " +
+        FINISHED;
+    // reservation_tables rows go with them (ON DELETE CASCADE)
+    private static final String DELETE_CHUNK =
+        "DELETE FROM reservations " +
+        "WHERE reservation_id > ? AND reservation_id <= ? AND reservation_time < ? AND " +
+        FINISHED;
+    private static final String ARCHIVE_PARTITIONS =
+        "SELECT partition_name, partition_description FROM information_schema.partitions " +
+        "WHERE table_schema = DATABASE() AND table_name = 'reservations_archive' " +
+        "AND partition_name IS NOT NULL";
+    // Catch-all partition above the monthly ones
+    private static final String FUTURE_PARTITION = "p_future";
+    // TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719528;
+
+    private final ConnectionPool pool;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int retentionMonths;
+    // One run at a time, scheduled or on demand
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    public ReservationArchiver(ConnectionPool pool) {
+        this.pool = pool;
+        this.chunkSize = Settings.getInt("restaurant.archive.chunkSize", 1000);
+        this.pauseMillis = Settings.getLong("restaurant.archive.pauseMs", 100);
+        this.retentionMonths = Settings.getInt("restaurant.archive.retentionMonths", 0);
+
+        int daysOld = Settings.getInt("restaurant.archive.daysOld", 0);
+        if (daysOld <= 0) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalHours = Settings.getLong("restaurant.archive.intervalHours", 24);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archive(LocalDate.now().minusDays(daysOld).atStartOfDay());
+            } catch (SQLException e) {
+                log.warn("Reservation archival failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, intervalHours, intervalHours, TimeUnit.HOURS);
+    }
+
+    /**
+     * Move every finished reservation from before the cutoff to the archive
+     * @return number of reservations moved
+     */
+    public int archive(LocalDateTime before) throws SQLException, InterruptedException {
+        runLock.lock();
+        try {
+            long start = System.nanoTime();
+            preparePartitions(before.toLocalDate());
+
+            int moved = 0;
+            int afterId = 0;
+            while (true) {
+                long chunkStart = System.nanoTime();
+                int lastId = nextChunkEnd(afterId, before);
+                if (lastId == afterId) break;
+                int chunk = moveChunk(afterId, lastId, before);
+                moved += chunk;
+                afterId = lastId;
+                Metrics.registry().increment(Metrics.ARCHIVED, "table", "reservations", chunk);
+
+                long chunkMillis = (System.nanoTime() - chunkStart) / 1_000_000;
+                Thread.sleep(Math.max(pauseMillis, chunkMillis));
+            }
+            log.info("Archived {} reservations from before {} in {} ms", moved, before,
+                (System.nanoTime() - start) / 1_000_000);
+            return moved;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Id of the chunkSize-th finished reservation after afterId, or of the
+     * last one; afterId when none is left
+     */
+    private int nextChunkEnd(int afterId, LocalDateTime before) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(NEXT_CHUNK)) {
+            stmt.setInt(1, afterId);
+            stmt.setObject(2, before);
+            stmt.setInt(3, chunkSize);
+            ResultSet rs = stmt.executeQuery();
+
+            int lastId = afterId;
+            while (rs.next()) {
+                lastId = rs.getInt(1);
+            }
+            return lastId;
+        }
+    }
+
+    /**
+     * Copy and delete the finished reservations in (afterId, lastId] in one
+     * transaction
+     */
+    private int moveChunk(int afterId, int lastId, LocalDateTime before) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int copied;
+                try (PreparedStatement stmt = conn.prepareStatement(COPY_CHUNK)) {
+                    stmt.setInt(1, afterId);
+                    stmt.setInt(2, lastId);
+                    stmt.setObject(3, before);
+                    copied = stmt.executeUpdate();
+                }
+                int deleted;
+                try (PreparedStatement stmt = conn.prepareStatement(DELETE_CHUNK)) {
+                    stmt.setInt(1, afterId);
+                    stmt.setInt(2, lastId);
+                    stmt.setObject(3, before);
+                    deleted = stmt.executeUpdate();
+                }
+                if (copied != deleted) {
+                    // The copy's locks make this unreachable; never delete unarchived rows
+                    throw new SQLException("Archive chunk copied " + copied +
+                        " rows but matched " + deleted + " for deletion");
+                }
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // ==========================================
+    // PARTITIONS
+    // ==========================================
+
+    /**
+     * Add monthly partitions through the cutoff's month and drop those past
+     * retention
+     */
+    private void preparePartitions(LocalDate cutoff) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Upper bound of each monthly partition (first day of the next month)
+            List<String> names = new ArrayList<>();
+            List<LocalDate> bounds = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery(ARCHIVE_PARTITIONS)) {
+                while (rs.next()) {
+                    if (FUTURE_PARTITION.equals(rs.getString(1))) continue;
+                    names.add(rs.getString(1));
+                    bounds.add(LocalDate.ofEpochDay(
+                        Long.parseLong(rs.getString(2)) - TO_DAYS_EPOCH));
+                }
+            } catch (SQLException e) {
+                // Databases without information_schema.partitions (H2 in the benchmark)
+                log.debug("No partition information for reservations_archive", e);
+                return;
+            }
+            if (names.isEmpty()) return;
+
+            LocalDate highest = bounds.stream().max(LocalDate::compareTo).get();
+            LocalDate through = cutoff.withDayOfMonth(1).plusMonths(1);
+            if (highest.isBefore(through)) {
+                // p_future holds nothing older than the cutoff, so this split moves no rows
+                StringBuilder ddl = new StringBuilder("ALTER TABLE reservations_archive " +
+                    "REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (");
+                for (LocalDate month = highest; month.isBefore(through);
+                        month = month.plusMonths(1)) {
+                    ddl.append(String.format("PARTITION p%04d%02d VALUES LESS THAN " +
+                        "(TO_DAYS('%s')), ", month.getYear(), month.getMonthValue(),
+                        month.plusMonths(1)));
+                }
+                ddl.append("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+                stmt.execute(ddl.toString());
+            }
+
+            if (retentionMonths > 0) {
+                LocalDate keepFrom = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+                List<String> expired = new ArrayList<>();
+                for (int i = 0; i < names.size(); i++) {
+                    if (!bounds.get(i).isAfter(keepFrom)) {
+                        expired.add(names.get(i));
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    stmt.execute("ALTER TABLE reservations_archive DROP PARTITION " +
+                        String.join(", ", expired));
+                    log.info("Dropped archive partitions {}", expired);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.restaurant.database;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationStatus;
+import com.restaurant.model.Table;
+import com.restaurant.model.TimeSlot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the reservation hot paths
+ * Runs DatabaseManager against an in-memory H2 database (MySQL mode) seeded
+ * with a configurable restaurant size and reservation history.
+ *
+ *   java -cp <classpath> org.openjdk.jmh.Main ReservationBenchmark \
+ *        -p tableCount=50 -p reservationCount=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBenchmark {
+
+    @Param({"50"})
+    public int tableCount;
+
+    @Param({"1000000"})
+    public int reservationCount;
+
+    @Param({"10000"})
+    public int customerCount;
+
+    // History spans this many days back; a tenth of the rows are upcoming
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final int UPCOMING_DAYS = 60;
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    private ConnectionPool pool;
+    private DatabaseManager db;
+    private ObjectMapper mapper;
+    private List<Reservation> customerHistory;
+    private Connection mappingConnection;
+    private ResultSet mappingRows;
+    private LocalDate today;
+    private Path journalDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = new ConnectionPool("jdbc:h2:mem:reservation_bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "sa", "", 2, 8, 3000, 0);
+        today = LocalDate.now();
+        try (Connection conn = pool.getConnection()) {
+            createSchema(conn);
+            seed(conn);
+        }
+
+        // Every seeded row was updated moments ago; a margin of only the
+        // second updated_at is truncated to keeps warm recovery from
+        // re-reading them all
+        journalDir = Files.createTempDirectory("reservation-journal");
+        System.setProperty("restaurant.journal.dir", journalDir.toString());
+        System.setProperty("restaurant.journal.catchUpMarginMs", "1000");
+        db = new DatabaseManager(pool);
+        db.reloadAvailabilityIndex();
+
+        mapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        customerHistory = db.getReservationsByCustomerId(1);
+
+        mappingConnection = pool.getConnection();
+        mappingRows = mappingConnection.createStatement(
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)
+            .executeQuery(DatabaseManager.SELECT_RESERVATION + "LIMIT 1000");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        mappingRows.close();
+        mappingConnection.close();
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        db.close();
+        try (var files = Files.list(journalDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDir);
+    }
+
+    // ==========================================
+    // BENCHMARKS
+    // ==========================================
+
+    @Benchmark
+    public Table findAvailableTable() throws SQLException {
+        return db.findAvailableTable(randomPartySize(), randomUpcomingSlot());
+    }
+
+    /**
+     * Parties larger than any table, seated on joined tables
+     */
+    @Benchmark
+    public Table findLargePartySeating() throws SQLException {
+        return db.findAvailableTable(
+            ThreadLocalRandom.current().nextInt(10, 17), randomUpcomingSlot());
+    }
+
+    @Benchmark
+    public List<TimeSlot> getAvailableTimeSlots() throws SQLException {
+        LocalDate date = today.plusDays(ThreadLocalRandom.current().nextInt(1, UPCOMING_DAYS));
+        return db.getAvailableTimeSlots(date.toString(), randomPartySize());
+    }
+
+    /**
+     * Plain insert on a far-future slot; H2 has no double-booking trigger
+     */
+    @Benchmark
+    public int createReservation() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return db.createReservation(new Reservation(0,
+            random.nextInt(1, customerCount + 1),
+            random.nextInt(1, tableCount + 1),
+            today.plusYears(5).plusDays(random.nextInt(365)).atTime(random.nextInt(9, 22), 0),
+            randomPartySize(), ReservationStatus.CANCELLED, null));
+    }
+
+    /**
+     * Full booking path (claim + insert) followed by a cancel so the
+     * schedule does not fill up over the run
+     */
+    @Benchmark
+    public Reservation bookAndCancelReservation() throws SQLException {
+        Reservation booked = db.bookReservation(new Reservation(0,
+            ThreadLocalRandom.current().nextInt(1, customerCount + 1), 0,
+            randomUpcomingSlot(), randomPartySize(), ReservationStatus.CONFIRMED, null));
+        if (booked != null) {
+            db.cancelReservation(booked.getReservationId());
+        }
+        return booked;
+    }
+
+    /**
+     * Cold start: the availability index loaded from the database
+     */
+    @Benchmark
+    public void reloadAvailabilityIndex() throws SQLException {
+        db.reloadAvailabilityIndex();
+    }
+
+    /**
+     * Warm start: the availability index rebuilt from the journal snapshot
+     */
+    @Benchmark
+    public boolean recoverAvailabilityIndex() throws SQLException, IOException {
+        return db.recoverAvailabilityIndex();
+    }
+
+    @Benchmark
+    public List<Reservation> getReservationsByCustomerId() throws SQLException {
+        return db.getReservationsByCustomerId(
+            ThreadLocalRandom.current().nextInt(1, customerCount + 1));
+    }
+
+    @Benchmark
+    public Reservation mapResultSetToReservation() throws SQLException {
+        if (!mappingRows.next()) {
+            mappingRows.first();
+        }
+        return DatabaseManager.mapResultSetToReservation(mappingRows);
+    }
+
+    @Benchmark
+    public byte[] serializeReservations() throws Exception {
+        return mapper.writeValueAsBytes(customerHistory);
+    }
+
+    // ==========================================
+    // SEEDING
+    // ==========================================
+
+    private void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE customers (" +
+                "customer_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "name VARCHAR(100) NOT NULL, " +
+                "email VARCHAR(100) UNIQUE NOT NULL, " +
+                "phone VARCHAR(20), " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE tables (" +
+                "table_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "table_number INT UNIQUE NOT NULL, " +
+                "capacity INT NOT NULL, " +
+                "location ENUM('INDOOR', 'OUTDOOR', 'PATIO', 'BAR') DEFAULT 'INDOOR', " +
+                "status ENUM('AVAILABLE', 'OCCUPIED', 'RESERVED', 'MAINTENANCE') " +
+                "DEFAULT 'AVAILABLE', " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE reservations (" +
+                "reservation_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "customer_id INT NOT NULL, " +
+                "table_id INT NOT NULL, " +
+                "reservation_time DATETIME NOT NULL, " +
+                "end_time DATETIME NOT NULL, " +
+                "party_size INT NOT NULL, " +
+                "status ENUM('CONFIRMED', 'CANCELLED', 'COMPLETED', 'NO_SHOW') " +
+                "DEFAULT 'CONFIRMED', " +
+                "special_requests TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE table_joins (" +
+                "table_id INT NOT NULL, " +
+                "joined_table_id INT NOT NULL, " +
+                "PRIMARY KEY (table_id, joined_table_id))");
+            stmt.execute("CREATE TABLE reservation_tables (" +
+                "reservation_id INT NOT NULL, " +
+                "table_id INT NOT NULL, " +
+                "PRIMARY KEY (reservation_id, table_id))");
+            stmt.execute("CREATE INDEX idx_joined_table ON reservation_tables(table_id)");
+            // Left empty: every party gets TurnTimes.DEFAULT_TURN_MINUTES
+            stmt.execute("CREATE TABLE turn_time_rules (" +
+                "rule_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "min_party_size INT NOT NULL, " +
+                "max_party_size INT NOT NULL, " +
+                "starts_at TIME NOT NULL, " +
+                "ends_at TIME NOT NULL, " +
+                "turn_minutes INT NOT NULL)");
+            stmt.execute("CREATE TABLE waitlist (" +
+                "waitlist_id INT PRIMARY KEY AUTO_INCREMENT, " +
+                "customer_id INT NOT NULL, " +
+                "reservation_time DATETIME NOT NULL, " +
+                "party_size INT NOT NULL, " +
+                "special_requests TEXT, " +
+                "status ENUM('WAITING', 'CONFIRMED', 'EXPIRED', 'CANCELLED') " +
+                "DEFAULT 'WAITING', " +
+                "reservation_id INT NULL, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE INDEX idx_waitlist_status_time ON waitlist(status, reservation_time)");
+            // Unpartitioned here; H2 has no partitions, so the archiver skips them
+            stmt.execute("CREATE TABLE reservations_archive (" +
+                "reservation_id INT NOT NULL, " +
+                "customer_id INT NOT NULL, " +
+                "table_id INT NOT NULL, " +
+                "reservation_time DATETIME NOT NULL, " +
+                "end_time DATETIME NOT NULL, " +
+                "party_size INT NOT NULL, " +
+                "status ENUM('CONFIRMED', 'CANCELLED', 'COMPLETED', 'NO_SHOW') NOT NULL, " +
+                "special_requests TEXT, " +
+                "joined_table_ids VARCHAR(255) NULL, " +
+                "created_at TIMESTAMP NULL, " +
+                "updated_at TIMESTAMP NULL, " +
+                "archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (reservation_id, reservation_time))");
+            stmt.execute("CREATE INDEX idx_archive_time ON reservations_archive(reservation_time)");
+            stmt.execute("CREATE INDEX idx_archive_table_time " +
+                "ON reservations_archive(table_id, reservation_time)");
+            stmt.execute("CREATE INDEX idx_archive_status_time " +
+                "ON reservations_archive(status, reservation_time)");
+            stmt.execute("CREATE TABLE reservation_rollups (" +
+                "rollup_date DATE NOT NULL, " +
+                "table_id INT NOT NULL, " +
+                "daypart TINYINT NOT NULL, " +
+                "bookings INT NOT NULL DEFAULT 0, " +
+                "covers INT NOT NULL DEFAULT 0, " +
+                "cancellations INT NOT NULL DEFAULT 0, " +
+                "no_shows INT NOT NULL DEFAULT 0, " +
+                "booked_minutes INT NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (rollup_date, table_id, daypart))");
+            stmt.execute("CREATE INDEX idx_customer ON reservations(customer_id)");
+            stmt.execute("CREATE INDEX idx_time ON reservations(reservation_time)");
+            stmt.execute("CREATE INDEX idx_reservation_lookup " +
+                "ON reservations(customer_id, status, reservation_time)");
+            stmt.execute("CREATE INDEX idx_time_range " +
+                "ON reservations(reservation_time, status, table_id)");
+            stmt.execute("CREATE INDEX idx_table_time ON reservations(table_id, reservation_time)");
+            stmt.execute("CREATE INDEX idx_status_time ON reservations(status, reservation_time)");
+            stmt.execute("CREATE INDEX idx_updated_at ON reservations(updated_at)");
+        }
+    }
+
+    private void seed(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        int[] capacities = {2, 2, 4, 4, 4, 6, 6, 8};
+        String[] locations = {"INDOOR", "OUTDOOR", "PATIO", "BAR"};
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO tables (table_number, capacity, location) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= tableCount; i++) {
+                stmt.setInt(1, i);
+                stmt.setInt(2, capacities[i % capacities.length]);
+                stmt.setString(3, locations[i % locations.length]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        // Tables four apart share a location; each can be pushed against the next
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO table_joins (table_id, joined_table_id) VALUES (?, ?)")) {
+            for (int i = 1; i + 4 <= tableCount; i++) {
+                stmt.setInt(1, i);
+                stmt.setInt(2, i + 4);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO customers (name, email, phone) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= customerCount; i++) {
+                stmt.setString(1, "Customer " + i);
+                stmt.setString(2, "customer" + i + "@example.com");
+                stmt.setString(3, String.format("555-%04d", i % 10000));
+                stmt.addBatch();
+                if (i % SEED_BATCH_SIZE == 0) stmt.executeBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        // One booking per (table, day, seating) so upcoming days stay consistent
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] pastStatuses = {"COMPLETED", "COMPLETED", "COMPLETED", "CANCELLED", "NO_SHOW"};
+        int upcoming = reservationCount / 10;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO reservations (customer_id, table_id, reservation_time, end_time, " +
+                "party_size, status, special_requests) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < reservationCount; i++) {
+                boolean future = i < upcoming;
+                int day = future ? 1 + random.nextInt(UPCOMING_DAYS) : -1 - random.nextInt(HISTORY_DAYS);
+                int tableId = 1 + random.nextInt(tableCount);
+                // Seatings two hours apart never block each other
+                int hour = 10 + 2 * random.nextInt(6);
+                LocalDateTime time = today.plusDays(day).atTime(hour, 0);
+                stmt.setInt(1, 1 + random.nextInt(customerCount));
+                stmt.setInt(2, tableId);
+                stmt.setTimestamp(3, Timestamp.valueOf(time));
+                stmt.setTimestamp(4, Timestamp.valueOf(
+                    time.plusMinutes(TurnTimes.DEFAULT_TURN_MINUTES)));
+                stmt.setInt(5, 1 + random.nextInt(capacities[tableId % capacities.length]));
+                stmt.setString(6, future ? "CONFIRMED" : pastStatuses[random.nextInt(pastStatuses.length)]);
+                stmt.setString(7, random.nextInt(5) == 0 ? "Window seat preferred" : null);
+                stmt.addBatch();
+                if ((i + 1) % SEED_BATCH_SIZE == 0) stmt.executeBatch();
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static int randomPartySize() {
+        return ThreadLocalRandom.current().nextInt(1, 7);
+    }
+
+    private LocalDateTime randomUpcomingSlot() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return today.plusDays(random.nextInt(1, UPCOMING_DAYS))
+            .atTime(random.nextInt(9, 22), random.nextBoolean() ? 0 : 30);
+    }
+}
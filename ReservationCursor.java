@@ -0,0 +1,56 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Pull-based cursor over a reservation query, newest first
+ * Rows are fetched in keyset chunks on (reservation_time, reservation_id), each
+ * on a connection borrowed for that chunk only, so a caller reading at its own
+ * pace (e.g. a slow reactive subscriber) never pins a pooled connection.
+ * Chunks are separate reads: a row changed between them may be missed or seen
+ * at its new position, as with the paged admin listing.
+ */
+public class ReservationCursor {
+
+    private final ChunkLoader loader;
+    private final int chunkSize;
+    private final ArrayDeque<Reservation> buffered = new ArrayDeque<>();
+    private LocalDateTime lastTime;
+    private int lastId;
+    private boolean exhausted;
+
+    ReservationCursor(ChunkLoader loader, int chunkSize) {
+        this.loader = loader;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Next row, or null once the query is exhausted
+     */
+    public Reservation next() throws SQLException {
+        if (buffered.isEmpty() && !exhausted) {
+            List<Reservation> chunk = loader.load(lastTime, lastId, chunkSize);
+            exhausted = chunk.size() < chunkSize;
+            if (!chunk.isEmpty()) {
+                Reservation last = chunk.get(chunk.size() - 1);
+                lastTime = last.getReservationTime();
+                lastId = last.getReservationId();
+            }
+            buffered.addAll(chunk);
+        }
+        return buffered.poll();
+    }
+
+    /**
+     * Reads the chunk after the given key; a null beforeTime reads the first
+     */
+    interface ChunkLoader {
+        List<Reservation> load(LocalDateTime beforeTime, int beforeId, int limit)
+            throws SQLException;
+    }
+}
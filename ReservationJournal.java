@@ -0,0 +1,396 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of booking changes, with snapshots, so a
+ * restarted node can rebuild its availability index without scanning every
+ * upcoming reservation in MySQL
+ * Each committed booking change is appended to a memory-mapped journal file
+ * as a small checksummed record. After every full index load, and then
+ * periodically, the index's bookings are written to a compact binary
+ * snapshot and the journal starts a new generation; older generations are
+ * deleted. On restart the snapshot is memory-mapped and the journal
+ * generations written since are replayed (see recover).
+ * Records are in the page cache as soon as they are written, so they
+ * survive a process crash. After an OS crash replay stops at the first
+ * record whose checksum does not match; DatabaseManager re-reads every
+ * reservation changed after the last replayed record, so nothing is lost.
+ * Table status is not journaled: the table list is re-read on recovery.
+ */
+public class ReservationJournal implements ReservationListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationJournal.class);
+
+    private static final int JOURNAL_MAGIC = 0x524A4E4C;  // "RJNL"
+    private static final int SNAPSHOT_MAGIC = 0x52534E50; // "RSNP"
+    private static final int VERSION = 1;
+    // magic, version, generation, taken at, row count
+    private static final int SNAPSHOT_HEADER_BYTES = 28;
+    // magic, window size
+    private static final int JOURNAL_HEADER_BYTES = 8;
+    // length, crc, then type, time, reservation id, start, end, table count
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int BODY_BYTES = 22;
+    private static final byte BOOK = 1;
+    private static final byte RELEASE = 2;
+    // Record length marking the rest of a mapped window as unused
+    private static final int WINDOW_END = -1;
+
+    private final Path dir;
+    private final int windowBytes;
+
+    // Guards the mapped window; snapshotLock serializes whole snapshots
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowBase;
+    private long generation;
+    // Appends are accepted only once the journal continues a snapshot
+    private boolean open;
+
+    /**
+     * A snapshot with its journal replayed on top
+     * @param lastChangeMillis time of the newest change the store is known
+     *                         to include
+     */
+    public record Recovery(ReservationStore bookings, long lastChangeMillis, int replayed) {}
+
+    public ReservationJournal(Path dir, int windowBytes) {
+        this.dir = dir;
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * The journal in restaurant.journal.dir, or null when it is not set
+     */
+    public static ReservationJournal fromEnvironment() {
+        String dir = Settings.get("restaurant.journal.dir", "");
+        if (dir.isBlank()) return null;
+        return new ReservationJournal(Path.of(dir),
+            Settings.getInt("restaurant.journal.windowBytes", 16 << 20));
+    }
+
+    // ==========================================
+    // RECORDS
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        reservationUpdated(null, reservation);
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        if (after.getStatus() == ReservationStatus.CONFIRMED) {
+            append(BOOK, after.getReservationId(),
+                ReservationStore.toEpochMinute(after.getReservationTime()),
+                ReservationStore.toEpochMinute(after.getEndTime()),
+                AvailabilityIndex.tableIdsOf(after));
+        } else {
+            append(RELEASE, after.getReservationId(), 0, 0, new int[0]);
+        }
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        append(RELEASE, before.getReservationId(), 0, 0, new int[0]);
+    }
+
+    private void append(byte type, int reservationId, int startMinute, int endMinute,
+                        int[] tableIds) {
+        ByteBuffer body = ByteBuffer.allocate(BODY_BYTES + 4 * tableIds.length);
+        body.put(type).putLong(System.currentTimeMillis()).putInt(reservationId)
+            .putInt(startMinute).putInt(endMinute).put((byte) tableIds.length);
+        for (int tableId : tableIds) {
+            body.putInt(tableId);
+        }
+        body.flip();
+        int length = body.remaining();
+
+        lock.lock();
+        try {
+            if (!open) return;
+            crc.reset();
+            crc.update(body.duplicate());
+            if (window.remaining() < RECORD_HEADER_BYTES + length) {
+                if (window.remaining() >= 4) {
+                    window.putInt(window.position(), WINDOW_END);
+                }
+                mapWindow(windowBase + windowBytes);
+            }
+            int at = window.position();
+            window.putInt(at + 4, (int) crc.getValue());
+            window.put(at + RECORD_HEADER_BYTES, body, 0, length);
+            // Written last: replay sees the record only once it is complete
+            window.putInt(at, length);
+            window.position(at + RECORD_HEADER_BYTES + length);
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop journaling and drop the snapshot so the next start is a full load
+     */
+    private void fail(IOException e) {
+        log.warn("Reservation journal write failed; disabling it until the next snapshot", e);
+        open = false;
+        try {
+            Files.deleteIfExists(snapshotPath());
+        } catch (IOException ignored) {
+            // Nothing more can be done; a stale snapshot is caught by its generation
+        }
+    }
+
+    private void mapWindow(long base) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_WRITE, base, windowBytes);
+        windowBase = base;
+        if (base == 0) {
+            window.putInt(JOURNAL_MAGIC).putInt(windowBytes);
+        }
+    }
+
+    // ==========================================
+    // SNAPSHOTS
+    // ==========================================
+
+    /**
+     * Write the index's bookings as the new snapshot and start the journal
+     * generation replayed on top of it; older generations are deleted
+     * The generation starts before the bookings are read, so a change racing
+     * the snapshot is at worst replayed onto a snapshot that already has it
+     */
+    public void snapshot(AvailabilityIndex index) throws IOException {
+        snapshotLock.lock();
+        try {
+            long snapshotGeneration = roll();
+            int[] rows = index.exportBookings();
+
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES + 4 * rows.length);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(snapshotGeneration)
+                .putLong(System.currentTimeMillis()).putInt(rows.length / 4);
+            buffer.asIntBuffer().put(rows);
+            buffer.rewind();
+
+            Path temp = dir.resolve("snapshot.tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(temp, snapshotPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+            for (long older : generations()) {
+                if (older < snapshotGeneration) {
+                    Files.deleteIfExists(journalPath(older));
+                }
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Start a new journal generation
+     */
+    private long roll() throws IOException {
+        lock.lock();
+        try {
+            closeChannel();
+            generation = Math.max(generation, latestGeneration()) + 1;
+            channel = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            mapWindow(0);
+            open = true;
+            return generation;
+        } catch (IOException e) {
+            open = false;
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Load the snapshot and replay the journal written since; bookings from
+     * before today are left for the caller to prune
+     * @return null when there is no usable snapshot
+     */
+    public Recovery recover() throws IOException {
+        Files.createDirectories(dir);
+        if (!Files.exists(snapshotPath())) return null;
+
+        ReservationStore bookings = new ReservationStore();
+        long snapshotGeneration;
+        long lastChange;
+        try (FileChannel in = FileChannel.open(snapshotPath(), StandardOpenOption.READ)) {
+            if (in.size() < SNAPSHOT_HEADER_BYTES) return null;
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (map.getInt() != SNAPSHOT_MAGIC || map.getInt() != VERSION) return null;
+            snapshotGeneration = map.getLong();
+            lastChange = map.getLong();
+            int rowCount = map.getInt();
+            if (in.size() != SNAPSHOT_HEADER_BYTES + 16L * rowCount) return null;
+            IntBuffer rows = map.asIntBuffer();
+            for (int i = 0; i < rowCount; i++) {
+                bookings.add(rows.get(), rows.get(), rows.get(), rows.get());
+            }
+        }
+
+        int replayed = 0;
+        for (long journal : generations()) {
+            if (journal < snapshotGeneration) continue;
+            Replay replay = replay(journalPath(journal), bookings);
+            replayed += replay.records;
+            lastChange = Math.max(lastChange, replay.lastChange);
+            if (!replay.complete) break;
+        }
+        generation = Math.max(generation, latestGeneration());
+        return new Recovery(bookings, lastChange, replayed);
+    }
+
+    private record Replay(int records, long lastChange, boolean complete) {}
+
+    /**
+     * Apply one generation's records in order; stops at the end of the
+     * journal or at the first damaged record
+     */
+    private Replay replay(Path path, ReservationStore bookings) throws IOException {
+        int records = 0;
+        long lastChange = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < JOURNAL_HEADER_BYTES) return new Replay(0, 0, true);
+            MappedByteBuffer first = in.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(size, JOURNAL_HEADER_BYTES));
+            if (first.getInt() != JOURNAL_MAGIC) return new Replay(0, 0, false);
+            int fileWindowBytes = first.getInt();
+
+            CRC32 check = new CRC32();
+            for (long base = 0; base < size; base += fileWindowBytes) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, base,
+                    Math.min(fileWindowBytes, size - base));
+                if (base == 0) map.position(JOURNAL_HEADER_BYTES);
+                while (map.remaining() >= RECORD_HEADER_BYTES) {
+                    int length = map.getInt();
+                    if (length == 0) return new Replay(records, lastChange, true);
+                    if (length == WINDOW_END) break;
+                    int expected = map.getInt();
+                    if (length < BODY_BYTES || length > map.remaining()) {
+                        return new Replay(records, lastChange, false);
+                    }
+                    ByteBuffer body = map.slice(map.position(), length);
+                    check.reset();
+                    check.update(body.duplicate());
+                    if ((int) check.getValue() != expected) {
+                        return new Replay(records, lastChange, false);
+                    }
+                    map.position(map.position() + length);
+
+                    byte type = body.get();
+                    lastChange = Math.max(lastChange, body.getLong());
+                    int reservationId = body.getInt();
+                    int startMinute = body.getInt();
+                    int endMinute = body.getInt();
+                    int[] tableIds = new int[body.get()];
+                    for (int i = 0; i < tableIds.length; i++) {
+                        tableIds[i] = body.getInt();
+                    }
+                    if (type == BOOK) {
+                        bookings.put(reservationId, tableIds, startMinute, endMinute);
+                    } else {
+                        bookings.remove(reservationId);
+                    }
+                    records++;
+                }
+            }
+        }
+        return new Replay(records, lastChange, true);
+    }
+
+    // ==========================================
+    // FILES
+    // ==========================================
+
+    private Path snapshotPath() {
+        return dir.resolve("snapshot.bin");
+    }
+
+    private Path journalPath(long generation) {
+        return dir.resolve(String.format("journal-%016d.log", generation));
+    }
+
+    /**
+     * Journal generations on disk, oldest first
+     */
+    private List<Long> generations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return generations;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(8, name.length() - 4)));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private long latestGeneration() throws IOException {
+        Files.createDirectories(dir);
+        List<Long> generations = generations();
+        return generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+    }
+
+    private void closeChannel() throws IOException {
+        if (window != null) {
+            window.force();
+            window = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            open = false;
+            closeChannel();
+        } catch (IOException e) {
+            log.warn("Reservation journal close failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+import com.restaurant.model.TableStatus;
+
+/**
+ * In-process notifications of committed reservation and table changes
+ * DatabaseManager calls listeners after each successful write, on the
+ * writing thread, so implementations must be quick and must not throw.
+ */
+public interface ReservationListener {
+
+    default void reservationCreated(Reservation reservation) {}
+
+    default void reservationUpdated(Reservation before, Reservation after) {}
+
+    /**
+     * @param before the reservation as it was before it was cancelled
+     */
+    default void reservationCancelled(Reservation before) {}
+
+    default void tableStatusChanged(int tableId, TableStatus status) {}
+}
@@ -0,0 +1,382 @@
+package com.restaurant.database;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact columnar store of bookings for the in-memory availability and
+ * statistics views
+ * Each row is four ints in parallel arrays: reservation id, table id,
+ * start time in epoch minutes and the next row of the same booking. A
+ * booking on joined tables has one row per table, chained from the first.
+ * Reservation ids map to their first row through two int arrays of
+ * open-addressing slots, kept at most half full, and each row has a
+ * start, end and id entry in its table's timeline, sorted by start. All of
+ * it is primitive arrays, with no per-booking objects.
+ * Only what availability needs is kept; full Reservation objects (status,
+ * special requests) are read from the database at the API boundary.
+ * Not thread-safe: owners guard access with their own lock.
+ */
+public class ReservationStore {
+
+    // Reservation ids come from AUTO_INCREMENT and start at 1
+    private static final int NO_ID = 0;
+
+    private int size;
+    private int[] ids = new int[16];
+    private int[] tableIds = new int[16];
+    private int[] startMinutes = new int[16];
+    // Next row of the same booking (joined tables), or -1
+    private int[] nextRows = new int[16];
+
+    // Open-addressing reservation id -> row, linear probing
+    private int[] slotIds = new int[32];
+    private int[] slotRows = new int[32];
+
+    private final Map<Integer, Timeline> timelines = new HashMap<>();
+
+    /**
+     * Minutes since 1970-01-01T00:00 in restaurant-local time
+     */
+    public static int toEpochMinute(LocalDateTime time) {
+        return (int) Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static LocalDateTime fromEpochMinute(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    public int size() { return size; }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(slotIds, NO_ID);
+        timelines.clear();
+    }
+
+    /**
+     * Add a booking, replacing any earlier one with the same reservation id
+     */
+    public void put(int reservationId, int tableId, int startMinute, int endMinute) {
+        remove(reservationId);
+        add(reservationId, tableId, startMinute, endMinute);
+    }
+
+    public void put(int reservationId, int tableId, LocalDateTime start, LocalDateTime end) {
+        put(reservationId, tableId, toEpochMinute(start), toEpochMinute(end));
+    }
+
+    /**
+     * Add a booking that holds several joined tables, replacing any earlier
+     * one with the same reservation id
+     */
+    public void put(int reservationId, int[] tableIds, int startMinute, int endMinute) {
+        remove(reservationId);
+        for (int tableId : tableIds) {
+            add(reservationId, tableId, startMinute, endMinute);
+        }
+    }
+
+    /**
+     * Add one more table to a booking (creating it if the id is not held)
+     * Used when the tables of joined bookings are loaded row by row
+     */
+    public void add(int reservationId, int tableId, int startMinute, int endMinute) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            tableIds = Arrays.copyOf(tableIds, capacity);
+            startMinutes = Arrays.copyOf(startMinutes, capacity);
+            nextRows = Arrays.copyOf(nextRows, capacity);
+        }
+        ids[size] = reservationId;
+        tableIds[size] = tableId;
+        startMinutes[size] = startMinute;
+        nextRows[size] = -1;
+        int head = findRow(reservationId);
+        if (head < 0) {
+            putSlot(reservationId, size);
+        } else {
+            nextRows[size] = nextRows[head];
+            nextRows[head] = size;
+        }
+        size++;
+        timelines.computeIfAbsent(tableId, id -> new Timeline())
+            .insert(startMinute, endMinute, reservationId);
+    }
+
+    /**
+     * Remove a booking with all its tables; returns false when the id is not held
+     */
+    public boolean remove(int reservationId) {
+        int head = findRow(reservationId);
+        if (head < 0) return false;
+        removeSlot(reservationId);
+
+        int count = 0;
+        int[] rows = new int[4];
+        for (int row = head; row >= 0; row = nextRows[row]) {
+            Timeline timeline = timelines.get(tableIds[row]);
+            if (timeline != null) {
+                timeline.remove(startMinutes[row], reservationId);
+            }
+            if (count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+            rows[count++] = row;
+        }
+        // Highest first, so the last row moved into a hole is never one of these
+        Arrays.sort(rows, 0, count);
+        for (int i = count - 1; i >= 0; i--) {
+            removeRow(rows[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Drop every booking starting before the given minute
+     */
+    public void removeBefore(int epochMinute) {
+        for (int row = size - 1; row >= 0; row--) {
+            // Removing a joined booking can take several rows at once
+            if (row < size && startMinutes[row] < epochMinute) {
+                remove(ids[row]);
+            }
+        }
+    }
+
+    /**
+     * True when a booking on the table, other than the excluded reservation,
+     * overlaps [startMinute, endMinute)
+     */
+    public boolean isBooked(int tableId, int startMinute, int endMinute, int excludeReservationId) {
+        Timeline timeline = timelines.get(tableId);
+        if (timeline == null) return false;
+        // Nothing starting longest minutes or more before the start can still be seated
+        for (int i = timeline.firstAfter(startMinute - timeline.longest);
+                i < timeline.size && timeline.minutes[i] < endMinute; i++) {
+            if (timeline.ends[i] > startMinute && timeline.ids[i] != excludeReservationId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Latest end of the table's bookings starting at or before the given
+     * minute, other than the excluded reservation; Integer.MIN_VALUE when
+     * there is none
+     */
+    public int previousEnd(int tableId, int epochMinute, int excludeReservationId) {
+        Timeline timeline = timelines.get(tableId);
+        if (timeline == null) return Integer.MIN_VALUE;
+        int latest = Integer.MIN_VALUE;
+        for (int i = timeline.firstAfter(epochMinute) - 1; i >= 0; i--) {
+            // Earlier bookings cannot end later than this one could
+            if ((long) timeline.minutes[i] + timeline.longest <= latest) break;
+            if (timeline.ids[i] != excludeReservationId) {
+                latest = Math.max(latest, timeline.ends[i]);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Start of the table's first booking after the given minute, other than
+     * the excluded reservation; Integer.MAX_VALUE when there is none
+     */
+    public int nextStart(int tableId, int epochMinute, int excludeReservationId) {
+        Timeline timeline = timelines.get(tableId);
+        if (timeline == null) return Integer.MAX_VALUE;
+        for (int i = timeline.firstAfter(epochMinute); i < timeline.size; i++) {
+            if (timeline.ids[i] != excludeReservationId) {
+                return timeline.minutes[i];
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Visit every table booking with fromMinute < start < toMinute, table by
+     * table; a booking on joined tables is visited once per table
+     */
+    public void forEachBetween(int fromMinute, int toMinute, BookingVisitor visitor) {
+        for (Map.Entry<Integer, Timeline> entry : timelines.entrySet()) {
+            Timeline timeline = entry.getValue();
+            int tableId = entry.getKey();
+            for (int i = timeline.firstAfter(fromMinute);
+                    i < timeline.size && timeline.minutes[i] < toMinute; i++) {
+                visitor.visit(timeline.ids[i], tableId, timeline.minutes[i], timeline.ends[i]);
+            }
+        }
+    }
+
+    /**
+     * Number of table bookings with fromMinute < start < toMinute
+     * (a booking on joined tables counts once per table)
+     */
+    public int countBetween(int fromMinute, int toMinute) {
+        int count = 0;
+        for (Timeline timeline : timelines.values()) {
+            count += Math.max(0, timeline.firstAfter(toMinute - 1) - timeline.firstAfter(fromMinute));
+        }
+        return count;
+    }
+
+    public interface BookingVisitor {
+        void visit(int reservationId, int tableId, int startMinute, int endMinute);
+    }
+
+    // ==========================================
+    // ROWS AND ID INDEX
+    // ==========================================
+
+    /**
+     * Delete a row by moving the last row into its place
+     */
+    private void removeRow(int row) {
+        int last = --size;
+        if (row == last) return;
+        ids[row] = ids[last];
+        tableIds[row] = tableIds[last];
+        startMinutes[row] = startMinutes[last];
+        nextRows[row] = nextRows[last];
+
+        // Repoint whatever referred to the moved row: the id index or the previous row
+        int head = findRow(ids[row]);
+        if (head == last) {
+            putSlot(ids[row], row);
+        } else {
+            int prev = head;
+            while (nextRows[prev] != last) prev = nextRows[prev];
+            nextRows[prev] = row;
+        }
+    }
+
+    private int findRow(int reservationId) {
+        int mask = slotIds.length - 1;
+        for (int slot = mix(reservationId) & mask; slotIds[slot] != NO_ID; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == reservationId) {
+                return slotRows[slot];
+            }
+        }
+        return -1;
+    }
+
+    private void putSlot(int reservationId, int row) {
+        if ((size + 1) * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        }
+        int mask = slotIds.length - 1;
+        int slot = mix(reservationId) & mask;
+        while (slotIds[slot] != NO_ID && slotIds[slot] != reservationId) {
+            slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = reservationId;
+        slotRows[slot] = row;
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones
+     */
+    private void removeSlot(int reservationId) {
+        int mask = slotIds.length - 1;
+        int slot = mix(reservationId) & mask;
+        while (slotIds[slot] != reservationId) {
+            if (slotIds[slot] == NO_ID) return;
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slotIds[next] != NO_ID; next = (next + 1) & mask) {
+            int home = mix(slotIds[next]) & mask;
+            // Move the entry back if its home is not cyclically within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slotIds[hole] = slotIds[next];
+                slotRows[hole] = slotRows[next];
+                hole = next;
+            }
+        }
+        slotIds[hole] = NO_ID;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldIds = slotIds;
+        int[] oldRows = slotRows;
+        slotIds = new int[capacity];
+        slotRows = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] == NO_ID) continue;
+            int slot = mix(oldIds[i]) & mask;
+            while (slotIds[slot] != NO_ID) {
+                slot = (slot + 1) & mask;
+            }
+            slotIds[slot] = oldIds[i];
+            slotRows[slot] = oldRows[i];
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // ==========================================
+    // PER-TABLE TIMELINE
+    // ==========================================
+
+    /**
+     * One table's bookings sorted by (start minute, reservation id)
+     */
+    private static final class Timeline {
+        int size;
+        int[] minutes = new int[8];
+        int[] ends = new int[8];
+        int[] ids = new int[8];
+        // Longest booking ever held; bounds how far back an overlap can start
+        int longest;
+
+        /**
+         * Index of the first booking starting after the given minute
+         */
+        int firstAfter(int minute) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minutes[mid] <= minute) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        void insert(int minute, int end, int id) {
+            int at = firstAfter(minute);
+            while (at > 0 && minutes[at - 1] == minute && ids[at - 1] > id) at--;
+            if (size == minutes.length) {
+                minutes = Arrays.copyOf(minutes, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(minutes, at, minutes, at + 1, size - at);
+            System.arraycopy(ends, at, ends, at + 1, size - at);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            minutes[at] = minute;
+            ends[at] = end;
+            ids[at] = id;
+            longest = Math.max(longest, end - minute);
+            size++;
+        }
+
+        void remove(int minute, int id) {
+            for (int i = firstAfter(minute - 1); i < size && minutes[i] == minute; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(minutes, i + 1, minutes, i, size - i - 1);
+                    System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+                    System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+}
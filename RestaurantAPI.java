@@ -1,17 +1,40 @@
 package com.restaurant.api;
 
 import com.restaurant.model.*;
+import com.restaurant.database.AvailabilitySearch;
+import com.restaurant.database.ConnectionPool;
 import com.restaurant.database.DatabaseManager;
+import com.restaurant.database.LruCache;
+import com.restaurant.database.Metrics;
+import com.restaurant.database.ReplicaRouter;
+import com.restaurant.database.ReportRollups;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
-
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Restaurant Reservation System - RESTful API
@@ -29,10 +52,29 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class RestaurantAPI {
 
-    private DatabaseManager dbManager;
+    private static final Logger log = LoggerFactory.getLogger(RestaurantAPI.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_SEARCH_DAYS = 92;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final int MAX_REPORT_DAYS = 5 * 366;
 
-    public RestaurantAPI() {
-        this.dbManager = new DatabaseManager();
+    private static final ObjectMapper EXPORT_MAPPER = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private DatabaseManager dbManager;
+    private AvailabilityBroadcaster availabilityBroadcaster;
+    private WaitlistManager waitlistManager;
+
+    public RestaurantAPI(DatabaseManager dbManager,
+                         AvailabilityBroadcaster availabilityBroadcaster,
+                         WaitlistManager waitlistManager) {
+        this.dbManager = dbManager;
+        this.availabilityBroadcaster = availabilityBroadcaster;
+        this.waitlistManager = waitlistManager;
     }
 
     public static void main(String[] args) {
@@ -53,6 +95,7 @@ public class RestaurantAPI {
             List<Reservation> reservations = dbManager.getReservationsByCustomerId(customerId);
             return ResponseEntity.ok(reservations);
         } catch (Exception e) {
+            log.error("getCustomerReservations failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -70,40 +113,94 @@ public class RestaurantAPI {
                     .body(new ReservationResponse(false, "Invalid reservation details", null));
             }
 
-            // Check table availability
-            Table availableTable = dbManager.findAvailableTable(
-                request.getPartySize(), 
-                request.getReservationTime()
-            );
-
-            if (availableTable == null) {
-                return ResponseEntity.ok()
-                    .body(new ReservationResponse(false, "No tables available", null));
-            }
-
-            // Create reservation
-            Reservation reservation = new Reservation(
+            // Claim a table and create the reservation atomically
+            Reservation reservation = dbManager.bookReservation(new Reservation(
                 0, // ID will be auto-generated
                 request.getCustomerId(),
-                availableTable.getTableId(),
+                0, // Table is assigned by the booking path
                 request.getReservationTime(),
                 request.getPartySize(),
-                "CONFIRMED",
+                ReservationStatus.CONFIRMED,
                 request.getSpecialRequests()
-            );
+            ), request.getPreferredLocation());
+
+            if (reservation == null && request.isJoinWaitlist()) {
+                // Confirmed later, off the request path, if a table frees up
+                WaitlistEntry entry = waitlistManager.join(request);
+                if (entry != null) {
+                    ReservationResponse response = new ReservationResponse(false,
+                        "No tables available; added to the waitlist", null);
+                    response.setWaitlistEntry(entry);
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+                }
+            }
 
-            int reservationId = dbManager.createReservation(reservation);
-            reservation.setReservationId(reservationId);
+            if (reservation == null) {
+                return ResponseEntity.ok()
+                    .body(new ReservationResponse(false, "No tables available", null));
+            }
 
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ReservationResponse(true, "Reservation created successfully", reservation));
 
         } catch (Exception e) {
+            log.error("createReservation failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ReservationResponse(false, "Server error: " + e.getMessage(), null));
         }
     }
 
+    /**
+     * Create several reservations in one call (bulk import, group booking)
+     * Tables are assigned together and the rows are written in one batched
+     * transaction; each item reports its own success or failure
+     */
+    @PostMapping("/reservations/batch")
+    public ResponseEntity<BatchReservationResponse> createReservations(
+            @RequestBody List<ReservationRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            boolean[] accepted = new boolean[requests.size()];
+            List<Reservation> valid = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                ReservationRequest request = requests.get(i);
+                accepted[i] = request != null && isValidReservation(request);
+                if (accepted[i]) {
+                    valid.add(new Reservation(
+                        0,
+                        request.getCustomerId(),
+                        0,
+                        request.getReservationTime(),
+                        request.getPartySize(),
+                        ReservationStatus.CONFIRMED,
+                        request.getSpecialRequests()
+                    ));
+                }
+            }
+            List<Reservation> booked = dbManager.bookReservations(valid);
+
+            List<ReservationResponse> results = new ArrayList<>();
+            int next = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                if (!accepted[i]) {
+                    results.add(new ReservationResponse(false, "Invalid reservation details", null));
+                    continue;
+                }
+                Reservation reservation = booked.get(next++);
+                results.add(reservation == null
+                    ? new ReservationResponse(false, "No tables available", null)
+                    : new ReservationResponse(true, "Reservation created successfully", reservation));
+            }
+            return ResponseEntity.ok(new BatchReservationResponse(results));
+
+        } catch (Exception e) {
+            log.error("createReservations failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Modify an existing reservation
      */
@@ -125,35 +222,23 @@ public class RestaurantAPI {
                     .body(new ReservationResponse(false, "Unauthorized", null));
             }
 
-            // Find new table if party size or time changed
-            Table newTable = dbManager.findAvailableTable(
-                request.getPartySize(),
-                request.getReservationTime(),
-                reservationId // Exclude current reservation
-            );
-
-            if (newTable == null) {
-                return ResponseEntity.ok()
-                    .body(new ReservationResponse(false, "No tables available for requested time", null));
-            }
-
-            // Update reservation
-            existing.setTableId(newTable.getTableId());
+            // Claim a table for the new time / party size and update atomically
             existing.setReservationTime(request.getReservationTime());
             existing.setPartySize(request.getPartySize());
             existing.setSpecialRequests(request.getSpecialRequests());
 
-            boolean updated = dbManager.updateReservation(existing);
+            Reservation updated = dbManager.moveReservation(existing);
 
-            if (updated) {
+            if (updated == null) {
                 return ResponseEntity.ok()
-                    .body(new ReservationResponse(true, "Reservation updated successfully", existing));
-            } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ReservationResponse(false, "Failed to update reservation", null));
+                    .body(new ReservationResponse(false, "No tables available for requested time", null));
             }
 
+            return ResponseEntity.ok()
+                .body(new ReservationResponse(true, "Reservation updated successfully", updated));
+
         } catch (Exception e) {
+            log.error("modifyReservation failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ReservationResponse(false, "Server error: " + e.getMessage(), null));
         }
@@ -191,6 +276,59 @@ public class RestaurantAPI {
             }
 
         } catch (Exception e) {
+            log.error("cancelReservation failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ReservationResponse(false, "Server error: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Get a waitlist entry; once CONFIRMED it carries the reservation id
+     */
+    @GetMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<WaitlistEntry> getWaitlistEntry(@PathVariable int waitlistId) {
+        try {
+            WaitlistEntry entry = dbManager.getWaitlistEntry(waitlistId);
+            if (entry == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(entry);
+        } catch (Exception e) {
+            log.error("getWaitlistEntry failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Leave the waitlist
+     */
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<ReservationResponse> leaveWaitlist(
+            @PathVariable int waitlistId,
+            @RequestParam int customerId) {
+        try {
+            // Verify ownership
+            WaitlistEntry entry = dbManager.getWaitlistEntry(waitlistId);
+            if (entry == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ReservationResponse(false, "Waitlist entry not found", null));
+            }
+
+            if (entry.getCustomerId() != customerId) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ReservationResponse(false, "Unauthorized", null));
+            }
+
+            if (waitlistManager.leave(waitlistId)) {
+                return ResponseEntity.ok()
+                    .body(new ReservationResponse(true, "Removed from the waitlist", null));
+            } else {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ReservationResponse(false, "Waitlist entry is no longer waiting", null));
+            }
+
+        } catch (Exception e) {
+            log.error("leaveWaitlist failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ReservationResponse(false, "Server error: " + e.getMessage(), null));
         }
@@ -198,15 +336,85 @@ public class RestaurantAPI {
 
     /**
      * Check table availability
+     * Slots are hourly by default; granularity may be 15, 30 or 60 minutes
      */
     @GetMapping("/availability")
     public ResponseEntity<List<TimeSlot>> checkAvailability(
             @RequestParam String date,
-            @RequestParam int partySize) {
+            @RequestParam int partySize,
+            @RequestParam(defaultValue = "60") int granularity) {
+        if (granularity != 15 && granularity != 30 && granularity != 60) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
-            List<TimeSlot> availableSlots = dbManager.getAvailableTimeSlots(date, partySize);
+            List<TimeSlot> availableSlots = dbManager.getAvailableTimeSlots(
+                date, partySize, granularity);
             return ResponseEntity.ok(availableSlots);
         } catch (Exception e) {
+            log.error("checkAvailability failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Search a range of days for free tables, e.g. the earliest Friday or
+     * Saturday table for 6 in the next month
+     * Returns up to limit slots, earliest first or, with near, closest to
+     * that time of day. days (e.g. FRIDAY,SATURDAY), earliest/latest (time
+     * of day window) and location narrow the search; the range defaults to
+     * the 30 days from today and may span at most MAX_SEARCH_DAYS days.
+     */
+    @GetMapping("/availability/search")
+    public ResponseEntity<List<TimeSlot>> searchAvailability(
+            @RequestParam int partySize,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Set<DayOfWeek> days,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime earliest,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime latest,
+            @RequestParam(required = false) TableLocation location,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime near,
+            @RequestParam(defaultValue = "60") int granularity,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (from == null) from = LocalDate.now();
+        if (to == null) to = from.plusDays(29);
+        if (granularity != 15 && granularity != 30 && granularity != 60
+                || partySize <= 0 || limit <= 0 || limit > MAX_SEARCH_LIMIT
+                || to.isBefore(from) || !to.isBefore(from.plusDays(MAX_SEARCH_DAYS))) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(dbManager.searchAvailability(new AvailabilitySearch.Query(
+                from, to, days, partySize, earliest, latest, location, granularity, near, limit)));
+        } catch (Exception e) {
+            log.error("searchAvailability failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Subscribe to availability changes over Server-Sent Events
+     * Sends a "snapshot" event with every slot, then "update" events with
+     * only the slots that changed, instead of the client polling /availability
+     */
+    @GetMapping(value = "/availability/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeAvailability(
+            @RequestParam String date,
+            @RequestParam int partySize,
+            @RequestParam(defaultValue = "60") int granularity) {
+        if (granularity != 15 && granularity != 30 && granularity != 60) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(availabilityBroadcaster.subscribe(
+                LocalDate.parse(date), partySize, granularity));
+        } catch (Exception e) {
+            log.error("subscribeAvailability failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -217,28 +425,125 @@ public class RestaurantAPI {
 
     /**
      * Get all reservations for admin view
+     * date, or from/to (half-open [from, to)), selects a time range that can
+     * be narrowed further by tableId or status (CONFIRMED, CANCELLED,
+     * COMPLETED or NO_SHOW; anything else is rejected with 400).
+     * Without filters the listing is paginated newest first: pass the
+     * X-Next-Cursor header of one page as the cursor of the next.
      */
     @GetMapping("/admin/reservations")
     public ResponseEntity<List<Reservation>> getAllReservations(
             @RequestParam(required = false) String date,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Integer tableId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         try {
+            if (date != null) {
+                LocalDate day = LocalDate.parse(date);
+                from = day.atStartOfDay();
+                to = day.plusDays(1).atStartOfDay();
+            }
+            if ((from == null) != (to == null) || (tableId != null && from == null)) {
+                return ResponseEntity.badRequest().build();
+            }
+
             List<Reservation> reservations;
             
-            if (date != null) {
-                reservations = dbManager.getReservationsByDate(date);
+            if (from != null) {
+                if (tableId != null) {
+                    reservations = dbManager.getReservationsByTable(tableId, from, to);
+                } else if (status != null) {
+                    reservations = dbManager.getReservationsByStatus(status, from, to);
+                } else {
+                    reservations = dbManager.getReservationsInRange(from, to);
+                }
             } else if (status != null) {
                 reservations = dbManager.getReservationsByStatus(status);
             } else {
-                reservations = dbManager.getAllReservations();
+                return getReservationsPage(cursor, limit);
             }
 
             return ResponseEntity.ok(reservations);
         } catch (Exception e) {
+            log.error("getAllReservations failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    private ResponseEntity<List<Reservation>> getReservationsPage(String cursor, int limit)
+            throws SQLException {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+
+        LocalDateTime beforeTime = null;
+        int beforeId = 0;
+        if (cursor != null) {
+            // Cursor format: <reservation_time>_<reservation_id> of the last row
+            String[] parts = cursor.split("_");
+            try {
+                beforeTime = LocalDateTime.parse(parts[0]);
+                beforeId = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        List<Reservation> page = dbManager.getReservationsPage(beforeTime, beforeId, pageSize);
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        Reservation last = page.get(page.size() - 1);
+        return ResponseEntity.ok()
+            .header("X-Next-Cursor", last.getReservationTime() + "_" + last.getReservationId())
+            .body(page);
+    }
+
+    /**
+     * Export every reservation as NDJSON or CSV
+     * Rows are written to the response as they are read from the database
+     */
+    @GetMapping("/admin/reservations/export")
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("reservation_id,customer_id,table_id,reservation_time," +
+                    "party_size,status,special_requests\n");
+            }
+            try {
+                dbManager.streamReservations(reservation -> {
+                    if (csv) {
+                        writer.write(toCsvRow(reservation));
+                    } else {
+                        writer.write(EXPORT_MAPPER.writeValueAsString(reservation));
+                    }
+                    writer.write('\n');
+                });
+            } catch (SQLException e) {
+                throw new IOException("Export failed", e);
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+            .contentType(csv ? MediaType.parseMediaType("text/csv")
+                             : MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     /**
      * Get restaurant statistics
      */
@@ -250,6 +555,7 @@ public class RestaurantAPI {
             RestaurantStatistics stats = dbManager.getStatistics(startDate, endDate);
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
+            log.error("getStatistics failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -263,6 +569,7 @@ public class RestaurantAPI {
             List<Table> tables = dbManager.getAllTables();
             return ResponseEntity.ok(tables);
         } catch (Exception e) {
+            log.error("getAllTables failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -274,6 +581,9 @@ public class RestaurantAPI {
     public ResponseEntity<String> updateTableStatus(
             @PathVariable int tableId,
             @RequestBody TableStatusRequest request) {
+        if (request.getStatus() == null) {
+            return ResponseEntity.badRequest().body("Invalid table status");
+        }
         try {
             boolean updated = dbManager.updateTableStatus(tableId, request.getStatus());
             
@@ -284,11 +594,158 @@ public class RestaurantAPI {
                     .body("Table not found");
             }
         } catch (Exception e) {
+            log.error("updateTableStatus failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the in-memory availability index from the database
+     */
+    @PostMapping("/admin/availability/reload")
+    public ResponseEntity<String> reloadAvailability() {
+        try {
+            dbManager.reloadAvailabilityIndex();
+            return ResponseEntity.ok("Availability index reloaded");
+        } catch (Exception e) {
+            log.error("reloadAvailability failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Server error: " + e.getMessage());
         }
     }
 
+    /**
+     * Move COMPLETED, CANCELLED and NO_SHOW reservations more than daysOld
+     * days old to the archive; runs in throttled chunks, so it can take a
+     * while on a large backlog
+     */
+    @PostMapping("/admin/archive")
+    public ResponseEntity<String> archiveReservations(@RequestParam int daysOld) {
+        if (daysOld <= 0) {
+            return ResponseEntity.badRequest().body("daysOld must be positive");
+        }
+        try {
+            int archived = dbManager.archiveReservations(
+                LocalDate.now().minusDays(daysOld).atStartOfDay());
+            return ResponseEntity.ok("Archived " + archived + " reservations");
+        } catch (Exception e) {
+            log.error("archiveReservations failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bookings, covers, cancellations, no-shows and utilization per period
+     * (DAY, WEEK or MONTH) over [from, to], served from the rollups;
+     * tableId and daypart (0 lunch, 1 dinner) narrow the report
+     */
+    @GetMapping("/admin/reports")
+    public ResponseEntity<List<ReportRollups.Period>> getReport(
+            @RequestParam(defaultValue = "DAY") ReportRollups.Granularity period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer tableId,
+            @RequestParam(required = false) Integer daypart) {
+        if (to.isBefore(from) || !to.isBefore(from.plusDays(MAX_REPORT_DAYS))
+                || daypart != null && daypart != ReportRollups.LUNCH
+                    && daypart != ReportRollups.DINNER) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(dbManager.getReport(period, from, to, tableId, daypart));
+        } catch (Exception e) {
+            log.error("getReport failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Rebuild the report rollups of [from, to] from the reservations,
+     * e.g. after importing history or changing statuses in bulk
+     */
+    @PostMapping("/admin/reports/backfill")
+    public ResponseEntity<String> backfillReports(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body("to must not be before from");
+        }
+        try {
+            long reservations = dbManager.backfillRollups(from, to);
+            return ResponseEntity.ok("Rolled up " + reservations + " reservations");
+        } catch (Exception e) {
+            log.error("backfillReports failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Server error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connection pool usage and acquire metrics
+     */
+    @GetMapping("/admin/pool")
+    public ResponseEntity<ConnectionPool.PoolStats> getPoolStats() {
+        return ResponseEntity.ok(dbManager.getPoolStats());
+    }
+
+    /**
+     * Waiting entries in the order they will be offered a table; every
+     * date when date is omitted
+     */
+    @GetMapping("/admin/waitlist")
+    public ResponseEntity<List<WaitlistEntry>> getWaitlist(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(waitlistManager.getQueued(date));
+    }
+
+    /**
+     * Health, replication lag and pool usage of each read replica
+     */
+    @GetMapping("/admin/replicas")
+    public ResponseEntity<List<ReplicaRouter.ReplicaStatus>> getReplicaStatus() {
+        return ResponseEntity.ok(dbManager.getReplicaStatus());
+    }
+
+    /**
+     * Customer and table cache hit/miss/eviction counters
+     */
+    @GetMapping("/admin/cache")
+    public ResponseEntity<List<LruCache.CacheStats>> getCacheStats() {
+        return ResponseEntity.ok(dbManager.getCacheStats());
+    }
+
+    /**
+     * Latency histograms, row counts and pool gauges in the Prometheus text format
+     */
+    @GetMapping(value = "/admin/metrics", produces = "text/plain; version=0.0.4")
+    public ResponseEntity<String> getMetrics() {
+        StringBuilder out = new StringBuilder();
+        Metrics.registry().writePrometheus(out);
+
+        ConnectionPool.PoolStats pool = dbManager.getPoolStats();
+        Metrics.writeGauge(out, "restaurant_db_pool_active", pool.getActiveConnections());
+        Metrics.writeGauge(out, "restaurant_db_pool_idle", pool.getIdleConnections());
+        Metrics.writeGauge(out, "restaurant_db_pool_waiting", pool.getThreadsAwaitingConnection());
+        Metrics.writeCounter(out, "restaurant_db_pool_acquire_timeouts_total",
+            pool.getAcquireTimeouts());
+        for (LruCache.CacheStats cache : dbManager.getCacheStats()) {
+            String prefix = "restaurant_cache_" + cache.getName();
+            Metrics.writeCounter(out, prefix + "_hits_total", cache.getHits());
+            Metrics.writeCounter(out, prefix + "_misses_total", cache.getMisses());
+            Metrics.writeCounter(out, prefix + "_evictions_total", cache.getEvictions());
+            Metrics.writeGauge(out, prefix + "_size", cache.getSize());
+        }
+        for (ReplicaRouter.ReplicaStatus replica : dbManager.getReplicaStatus()) {
+            String prefix = replica.name().replace('-', '_');
+            Metrics.writeGauge(out, prefix + "_lag_millis", replica.lagMillis());
+            Metrics.writeGauge(out, prefix + "_healthy", replica.healthy() ? 1 : 0);
+        }
+        return ResponseEntity.ok(out.toString());
+    }
+
     /**
      * Create new customer profile
      */
@@ -299,6 +756,7 @@ public class RestaurantAPI {
             customer.setCustomerId(customerId);
             return ResponseEntity.status(HttpStatus.CREATED).body(customer);
         } catch (Exception e) {
+            log.error("createCustomer failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -317,6 +775,7 @@ public class RestaurantAPI {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
         } catch (Exception e) {
+            log.error("getCustomer failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -325,6 +784,22 @@ public class RestaurantAPI {
     // UTILITY METHODS
     // ==========================================
 
+    private static String toCsvRow(Reservation reservation) {
+        String specialRequests = reservation.getSpecialRequests();
+        if (specialRequests == null) {
+            specialRequests = "";
+        } else if (specialRequests.matches("(?s).*[\",\r\n].*")) {
+            specialRequests = "\"" + specialRequests.replace("\"", "\"\"") + "\"";
+        }
+        return reservation.getReservationId() + "," +
+            reservation.getCustomerId() + "," +
+            reservation.getTableId() + "," +
+            reservation.getReservationTime() + "," +
+            reservation.getPartySize() + "," +
+            reservation.getStatus() + "," +
+            specialRequests;
+    }
+
     private boolean isValidReservation(ReservationRequest request) {
         if (request.getCustomerId() <= 0) return false;
         if (request.getPartySize() <= 0 || request.getPartySize() > 20) return false;
@@ -0,0 +1,251 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Table;
+import com.restaurant.model.TableLocation;
+import com.restaurant.model.TableStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Table assignment for the booking path
+ * Every way to seat a party - one table, or up to MAX_JOINED_TABLES adjacent
+ * tables from table_joins pushed together - is scored by the seat-minutes it
+ * makes unusable for the rest of the day:
+ *   - empty seats at the table(s) for the party's turn time,
+ *   - idle gaps left before/after the booking on each table that are
+ *     shorter than any party's turn at that time,
+ *   - a fixed cost per extra table joined.
+ * The cheapest free option wins. A preferred location is honoured whenever
+ * any free option offers it. Options are built once per table layout, so
+ * ranking is a scan over them with one timeline lookup per table.
+ * Not thread-safe: AvailabilityIndex calls it under its own lock.
+ */
+public class SeatingOptimizer {
+
+    public static final int MAX_JOINED_TABLES =
+        Settings.getInt("restaurant.seating.maxJoinedTables", 3);
+    private static final long JOIN_PENALTY =
+        Settings.getLong("restaurant.seating.joinPenalty", 120);
+    // Outweighs any achievable seat-minute cost
+    private static final long LOCATION_PENALTY = 1L << 40;
+
+    private static final int OPENING_MINUTE = DaySchedule.OPENING_HOUR * 60;
+    private static final int LAST_SEATING_MINUTE = DaySchedule.LAST_SEATING_HOUR * 60;
+
+    private final Option[] options;
+    private final List<int[]> combinations = new ArrayList<>();
+    private final TurnTimes turnTimes;
+
+    /**
+     * @param tables    every table; their status is read live on each call
+     * @param joins     pairs of adjacent table ids that can be pushed together
+     * @param turnTimes how long a booking holds its tables
+     */
+    public SeatingOptimizer(List<Table> tables, List<int[]> joins, TurnTimes turnTimes) {
+        this.turnTimes = turnTimes;
+        Map<Integer, Table> byId = new HashMap<>();
+        for (Table table : tables) {
+            byId.put(table.getTableId(), table);
+        }
+        Map<Integer, Set<Integer>> adjacent = new HashMap<>();
+        for (int[] join : joins) {
+            if (join[0] == join[1]
+                    || !byId.containsKey(join[0]) || !byId.containsKey(join[1])) continue;
+            adjacent.computeIfAbsent(join[0], id -> new HashSet<>()).add(join[1]);
+            adjacent.computeIfAbsent(join[1], id -> new HashSet<>()).add(join[0]);
+        }
+
+        // Connected sets of adjacent tables, grown one neighbour at a time
+        Set<List<Integer>> seen = new HashSet<>();
+        List<List<Integer>> level = new ArrayList<>();
+        for (Table table : tables) {
+            level.add(List.of(table.getTableId()));
+        }
+        List<Option> built = new ArrayList<>();
+        for (int tableCount = 1; tableCount <= MAX_JOINED_TABLES && !level.isEmpty(); tableCount++) {
+            List<List<Integer>> nextLevel = new ArrayList<>();
+            for (List<Integer> ids : level) {
+                built.add(new Option(ids.stream().map(byId::get).toArray(Table[]::new)));
+                for (int id : ids) {
+                    for (int neighbour : adjacent.getOrDefault(id, Set.of())) {
+                        TreeSet<Integer> grown = new TreeSet<>(ids);
+                        if (grown.add(neighbour) && seen.add(List.copyOf(grown))) {
+                            nextLevel.add(List.copyOf(grown));
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        built.sort(Comparator.comparingInt((Option option) -> option.capacity)
+            .thenComparingInt(option -> option.tables.length)
+            .thenComparingInt(option -> option.tableIds[0]));
+        this.options = built.toArray(new Option[0]);
+        for (Option option : options) {
+            if (option.tables.length > 1) {
+                combinations.add(option.tableIds);
+            }
+        }
+    }
+
+    /**
+     * Table id sets of every joinable combination, smallest capacity first
+     */
+    public List<int[]> getCombinations() {
+        return combinations;
+    }
+
+    /**
+     * Cheapest free seating, or null when the party cannot be seated
+     */
+    public Seating best(int partySize, TableLocation preferred, int epochMinute,
+                        ReservationStore bookings, int excludeReservationId) {
+        int turn = turnTimes.turnMinutes(partySize, epochMinute);
+        Option best = null;
+        long bestCost = Long.MAX_VALUE;
+        for (int i = firstFitting(partySize); i < options.length; i++) {
+            Option option = options[i];
+            // Options are sorted by capacity; empty seats alone now cost more
+            if ((long) (option.capacity - partySize) * turn > bestCost) break;
+            long cost = cost(option, partySize, preferred, epochMinute, turn, bookings,
+                excludeReservationId);
+            if (cost < bestCost) {
+                best = option;
+                bestCost = cost;
+            }
+        }
+        return best != null ? best.seating() : null;
+    }
+
+    /**
+     * Every free seating, cheapest first, so a booking can fall through to
+     * the next one if its claim loses a race
+     */
+    public List<Seating> rank(int partySize, TableLocation preferred, int epochMinute,
+                              ReservationStore bookings, int excludeReservationId) {
+        int turn = turnTimes.turnMinutes(partySize, epochMinute);
+        List<Option> free = new ArrayList<>();
+        List<Long> costs = new ArrayList<>();
+        for (int i = firstFitting(partySize); i < options.length; i++) {
+            long cost = cost(options[i], partySize, preferred, epochMinute, turn, bookings,
+                excludeReservationId);
+            if (cost != Long.MAX_VALUE) {
+                free.add(options[i]);
+                costs.add(cost);
+            }
+        }
+        Integer[] order = new Integer[free.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(costs::get));
+
+        List<Seating> ranked = new ArrayList<>(order.length);
+        for (int i : order) {
+            ranked.add(free.get(i).seating());
+        }
+        return ranked;
+    }
+
+    /**
+     * Seat-minutes lost by seating the party on this option, or
+     * Long.MAX_VALUE when one of its tables is unavailable or booked
+     */
+    private long cost(Option option, int partySize, TableLocation preferred, int epochMinute,
+                      int turn, ReservationStore bookings, int excludeReservationId) {
+        int end = epochMinute + turn;
+        int shortest = turnTimes.shortestTurnMinutes(epochMinute);
+        int dayStart = epochMinute - Math.floorMod(epochMinute, 24 * 60);
+        // No booking can start before opening or after the last seating
+        int openingBound = dayStart + OPENING_MINUTE;
+        int closingBound = dayStart + LAST_SEATING_MINUTE + shortest;
+
+        long cost = (long) (option.capacity - partySize) * turn
+            + (option.tables.length - 1) * JOIN_PENALTY;
+        if (preferred != null && option.tables[0].getLocation() != preferred) {
+            cost += LOCATION_PENALTY;
+        }
+        for (Table table : option.tables) {
+            if (table.getStatus() != TableStatus.AVAILABLE) return Long.MAX_VALUE;
+            int tableId = table.getTableId();
+            if (bookings.isBooked(tableId, epochMinute, end, excludeReservationId)) {
+                return Long.MAX_VALUE;
+            }
+            int previous = bookings.previousEnd(tableId, epochMinute, excludeReservationId);
+            int next = bookings.nextStart(tableId, epochMinute, excludeReservationId);
+            int before = epochMinute - Math.max(previous, openingBound);
+            int after = Math.min(next, closingBound) - end;
+            cost += (long) table.getCapacity()
+                * (stranded(before, shortest) + stranded(after, shortest));
+        }
+        return cost;
+    }
+
+    /**
+     * An idle gap shorter than the shortest turn can never be sold
+     */
+    private static int stranded(int gapMinutes, int shortestTurn) {
+        return gapMinutes > 0 && gapMinutes < shortestTurn ? gapMinutes : 0;
+    }
+
+    private int firstFitting(int partySize) {
+        int lo = 0, hi = options.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (options[mid].capacity < partySize) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // ==========================================
+    // SEATING OPTIONS
+    // ==========================================
+
+    /**
+     * Tables assigned to a booking; the first is the reservation's table_id,
+     * the rest are held through reservation_tables
+     */
+    public record Seating(int[] tableIds, int capacity) {
+
+        public int primaryTableId() {
+            return tableIds[0];
+        }
+
+        public List<Integer> joinedTableIds() {
+            List<Integer> joined = new ArrayList<>(tableIds.length - 1);
+            for (int i = 1; i < tableIds.length; i++) {
+                joined.add(tableIds[i]);
+            }
+            return joined;
+        }
+    }
+
+    private static final class Option {
+        final Table[] tables;
+        final int[] tableIds;
+        final int capacity;
+        final Seating seating;
+
+        Option(Table[] tables) {
+            this.tables = tables;
+            this.tableIds = new int[tables.length];
+            int seats = 0;
+            for (int i = 0; i < tables.length; i++) {
+                tableIds[i] = tables[i].getTableId();
+                seats += tables[i].getCapacity();
+            }
+            this.capacity = seats;
+            this.seating = new Seating(tableIds, seats);
+        }
+
+        Seating seating() {
+            return seating;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.restaurant.database;
+
+import com.restaurant.database.SeatingOptimizer.Seating;
+import com.restaurant.model.Table;
+import com.restaurant.model.TableLocation;
+import com.restaurant.model.TableStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seating replay for Restaurant Reservation System
+ * Replays a booking log through two table assignment strategies and reports
+ * the parties and covers each one seats:
+ *   smallest-fit - the original "ORDER BY capacity ASC LIMIT 1", single tables
+ *   optimizer    - SeatingOptimizer with table joins
+ * The table layout, joins and turn times are read from the database.
+ * Requests are every reservation made for the date range, in the order they
+ * were created and whatever their later status, or with --synthetic a
+ * generated evening demand that includes parties too large for any single
+ * table.
+ *
+ * Usage: SeatingReplay <fromDate> <toDate>
+ *        SeatingReplay --synthetic <days> [seed]
+ */
+public class SeatingReplay {
+
+    private static final Comparator<Table> SMALLEST_FIRST =
+        Comparator.comparingInt(Table::getCapacity).thenComparingInt(Table::getTableId);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SeatingReplay <fromDate> <toDate>");
+            System.err.println("       SeatingReplay --synthetic <days> [seed]");
+            System.exit(2);
+        }
+
+        try (ConnectionPool pool = ConnectionPool.fromEnvironment();
+             Connection conn = pool.getConnection()) {
+            List<Table> tables = loadTables(conn);
+            List<int[]> joins = loadJoins(conn);
+            TurnTimes turnTimes = TurnTimes.load(conn);
+            List<Request> log = "--synthetic".equals(args[0])
+                ? synthetic(tables, Integer.parseInt(args[1]),
+                    args.length > 2 ? Long.parseLong(args[2]) : 1)
+                : loadLog(conn, LocalDate.parse(args[0]), LocalDate.parse(args[1]));
+
+            System.out.printf("tables=%d joins=%d requests=%d%n",
+                tables.size(), joins.size(), log.size());
+            print(replay(tables, joins, turnTimes, log, false));
+            print(replay(tables, joins, turnTimes, log, true));
+        }
+    }
+
+    /**
+     * One booking request from the log
+     */
+    public record Request(LocalDateTime time, int partySize, TableLocation preferredLocation) {}
+
+    public record Result(String strategy, int requests, int seatedParties, int seatedCovers,
+                         int turnedAwayCovers, int largeParties, int largePartiesSeated,
+                         LatencyHistogram latency) {}
+
+    /**
+     * Seat every request in log order; each strategy starts from an empty
+     * day and keeps the bookings it made
+     */
+    public static Result replay(List<Table> layout, List<int[]> joins, TurnTimes turnTimes,
+                                List<Request> log, boolean optimize) {
+        // History is replayed against the layout as if every table were in service
+        List<Table> tables = new ArrayList<>();
+        int largestTable = 0;
+        for (Table table : layout) {
+            tables.add(new Table(table.getTableId(), table.getTableNumber(), table.getCapacity(),
+                table.getLocation(), TableStatus.AVAILABLE));
+            largestTable = Math.max(largestTable, table.getCapacity());
+        }
+        tables.sort(SMALLEST_FIRST);
+        SeatingOptimizer optimizer = new SeatingOptimizer(tables, joins, turnTimes);
+        ReservationStore bookings = new ReservationStore();
+        LatencyHistogram latency = new LatencyHistogram();
+
+        int seatedParties = 0, seatedCovers = 0, turnedAwayCovers = 0;
+        int largeParties = 0, largePartiesSeated = 0;
+        for (int i = 0; i < log.size(); i++) {
+            Request request = log.get(i);
+            int minute = ReservationStore.toEpochMinute(request.time());
+            int end = turnTimes.endMinute(request.partySize(), minute);
+            boolean large = request.partySize() > largestTable;
+            if (large) largeParties++;
+
+            long start = System.nanoTime();
+            int[] tableIds = optimize
+                ? tableIdsOf(optimizer.best(request.partySize(), request.preferredLocation(),
+                    minute, bookings, 0))
+                : smallestFit(tables, request.partySize(), minute, end, bookings);
+            latency.recordSince(start);
+
+            if (tableIds == null) {
+                turnedAwayCovers += request.partySize();
+                continue;
+            }
+            bookings.put(i + 1, tableIds, minute, end);
+            seatedParties++;
+            seatedCovers += request.partySize();
+            if (large) largePartiesSeated++;
+        }
+        return new Result(optimize ? "optimizer" : "smallest-fit", log.size(), seatedParties,
+            seatedCovers, turnedAwayCovers, largeParties, largePartiesSeated, latency);
+    }
+
+    /**
+     * The assignment findAvailableTable made before the optimizer
+     */
+    private static int[] smallestFit(List<Table> tables, int partySize, int minute, int end,
+                                     ReservationStore bookings) {
+        for (Table table : tables) {
+            if (table.getCapacity() < partySize) continue;
+            if (!bookings.isBooked(table.getTableId(), minute, end, 0)) {
+                return new int[] {table.getTableId()};
+            }
+        }
+        return null;
+    }
+
+    private static int[] tableIdsOf(Seating seating) {
+        return seating != null ? seating.tableIds() : null;
+    }
+
+    private static void print(Result result) {
+        LatencyHistogram latency = result.latency();
+        System.out.printf("%-12s seated=%d/%d parties covers=%d turnedAway=%d covers "
+                + "largeParties=%d/%d p50=%.1f us p99=%.1f us max=%.1f us%n",
+            result.strategy(), result.seatedParties(), result.requests(),
+            result.seatedCovers(), result.turnedAwayCovers(),
+            result.largePartiesSeated(), result.largeParties(),
+            latency.getQuantileSeconds(0.50) * 1e6, latency.getQuantileSeconds(0.99) * 1e6,
+            latency.getMaxSeconds() * 1e6);
+    }
+
+    // ==========================================
+    // BOOKING LOGS
+    // ==========================================
+
+    private static List<Table> loadTables(Connection conn) throws SQLException {
+        String sql = "SELECT table_id, table_number, capacity, location+0 FROM tables";
+        List<Table> tables = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                tables.add(new Table(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                    TableLocation.fromIndex(rs.getInt(4)), TableStatus.AVAILABLE));
+            }
+        }
+        return tables;
+    }
+
+    private static List<int[]> loadJoins(Connection conn) throws SQLException {
+        String sql = "SELECT table_id, joined_table_id FROM table_joins";
+        List<int[]> joins = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                joins.add(new int[] {rs.getInt(1), rs.getInt(2)});
+            }
+        }
+        return joins;
+    }
+
+    /**
+     * Every reservation for the date range in booking order
+     */
+    private static List<Request> loadLog(Connection conn, LocalDate from, LocalDate to)
+            throws SQLException {
+        String sql = "SELECT reservation_time, party_size FROM reservations " +
+                    "WHERE reservation_time >= ? AND reservation_time < ? " +
+                    "ORDER BY created_at, reservation_id";
+        List<Request> log = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, from.atStartOfDay());
+            stmt.setObject(2, to.plusDays(1).atStartOfDay());
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                log.add(new Request(rs.getObject(1, LocalDateTime.class), rs.getInt(2), null));
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Evening demand of about twice the covers the room seats in two turns,
+     * booked in random order; mostly couples and fours, with a tail of
+     * large groups
+     */
+    public static List<Request> synthetic(List<Table> tables, int days, long seed) {
+        int[] partySizes = {1, 2, 2, 2, 2, 2, 2, 2, 3, 3, 3, 4, 4, 4, 4, 4, 5, 5, 6, 6, 7, 8, 10, 12};
+        TableLocation[] locations = TableLocation.values();
+        int seats = 0;
+        for (Table table : tables) {
+            seats += table.getCapacity();
+        }
+
+        Random random = new Random(seed);
+        LocalDate first = LocalDate.now().plusDays(1);
+        List<Request> log = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            List<Request> dayLog = new ArrayList<>();
+            // 17:00 - 21:00 in 15 minute steps; the average party is about 3.6
+            int requests = Math.max(1, seats);
+            for (int i = 0; i < requests; i++) {
+                LocalDateTime time = first.plusDays(day).atTime(17, 0)
+                    .plusMinutes(15L * random.nextInt(17));
+                TableLocation preferred = random.nextInt(5) == 0
+                    ? locations[random.nextInt(locations.length)] : null;
+                dayLog.add(new Request(time, partySizes[random.nextInt(partySizes.length)],
+                    preferred));
+            }
+            Collections.shuffle(dayLog, random);
+            log.addAll(dayLog);
+        }
+        return log;
+    }
+}
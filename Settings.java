@@ -0,0 +1,27 @@
+package com.restaurant.database;
+
+/**
+ * Runtime settings for Restaurant Reservation System
+ * Reads system properties first, then the matching environment variable
+ * (restaurant.db.pool.maxSize -> RESTAURANT_DB_POOL_MAXSIZE)
+ */
+public final class Settings {
+
+    private Settings() {}
+
+    public static String get(String property, String defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            value = System.getenv(property.replace('.', '_').toUpperCase());
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    public static int getInt(String property, int defaultValue) {
+        return Integer.parseInt(get(property, Integer.toString(defaultValue)));
+    }
+
+    public static long getLong(String property, long defaultValue) {
+        return Long.parseLong(get(property, Long.toString(defaultValue)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.restaurant.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Iterator;
+
+/**
+ * Times every statement executed on a pooled connection
+ * Statement executions feed a latency histogram labelled with the
+ * DatabaseManager method (or other caller) that prepared the statement;
+ * any execution slower than the threshold is logged with its SQL text. Only the SQL as prepared
+ * is logged - bound parameter values (names, phone numbers, requests) are
+ * never seen here, so they cannot leak into the log.
+ */
+final class StatementTimer implements InvocationHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementTimer.class);
+
+    private static final String DATABASE_MANAGER = DatabaseManager.class.getName();
+    private static final StackWalker STACK = StackWalker.getInstance();
+
+    private final Object target;
+    private final String sql;
+    // Method label of the statement's histogram
+    private final String caller;
+    private final long slowNanos;
+
+    private StatementTimer(Object target, String sql, String caller, long slowNanos) {
+        this.target = target;
+        this.sql = sql;
+        this.caller = caller;
+        this.slowNanos = slowNanos;
+    }
+
+    static Connection wrap(Connection connection, long slowNanos) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new StatementTimer(connection, null, null, slowNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (target instanceof Connection) {
+            Object result = call(method, args);
+            if (result instanceof Statement statement) {
+                String text = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrapStatement(statement, text);
+            }
+            return result;
+        }
+        if (!name.startsWith("execute")) {
+            return call(method, args);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return call(method, args);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Metrics metrics = Metrics.registry();
+            metrics.histogram(Metrics.DB_STATEMENTS, "method", caller).recordNanos(elapsed);
+            if (elapsed >= slowNanos) {
+                metrics.increment(Metrics.DB_SLOW_STATEMENTS, null, null, 1);
+                String text = sql != null ? sql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : "?";
+                log.warn("Slow statement ({} ms, {}): {}",
+                    elapsed / 1_000_000, name, text.replaceAll("\\s+", " "));
+            }
+        }
+    }
+
+    private Object wrapStatement(Statement statement, String text) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class
+            : Statement.class;
+        return Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            new StatementTimer(statement, text, callerOf(), slowNanos));
+    }
+
+    /**
+     * The outermost DatabaseManager method on the stack, which is the public
+     * call the statement serves; otherwise the nearest caller outside the
+     * pool, as Class.method. Walked once per statement prepared, not per
+     * execution.
+     */
+    private static String callerOf() {
+        return STACK.walk(frames -> {
+            String outermost = null;
+            String nearest = null;
+            Iterator<StackWalker.StackFrame> it = frames.iterator();
+            while (it.hasNext()) {
+                StackWalker.StackFrame frame = it.next();
+                String type = frame.getClassName();
+                String name = frame.getMethodName();
+                if (type.equals(DATABASE_MANAGER)) {
+                    if (!name.startsWith("lambda$")) outermost = name;
+                } else if (nearest == null && !isInfrastructure(type)) {
+                    nearest = type.substring(type.lastIndexOf('.') + 1) + "." + name;
+                }
+            }
+            return outermost != null ? outermost : nearest != null ? nearest : "unknown";
+        });
+    }
+
+    private static boolean isInfrastructure(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.")
+            || type.startsWith("com.sun.proxy.") || type.startsWith("com.zaxxer.")
+            || type.equals(StatementTimer.class.getName())
+            || type.equals(ConnectionPool.class.getName());
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
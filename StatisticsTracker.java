@@ -0,0 +1,208 @@
+package com.restaurant.database;
+
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationStatus;
+import com.restaurant.model.RestaurantStatistics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard statistics maintained incrementally from reservation events
+ * Counters are reset from the database by DatabaseManager.reconcileStatistics
+ * on a schedule, which also corrects any drift from writes made by other nodes.
+ */
+public class StatisticsTracker implements ReservationListener {
+
+    // Hourly seatings per table per day (9 AM - 9 PM)
+    private static final int SEATINGS_PER_DAY =
+        DaySchedule.LAST_SEATING_HOUR - DaySchedule.OPENING_HOUR + 1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean loaded;
+    private long totalReservations;
+    private long confirmedReservations;
+    private long confirmedGuests;
+    private int tableCount;
+
+    // CONFIRMED reservations from today on; earlier days are pruned as they pass
+    private ReservationStore upcoming = new ReservationStore();
+    private LocalDate prunedThrough;
+    // Changes seen while reconcileStatistics reads the database, replayed onto
+    // the counters it resets to; null when no load is running
+    private List<Change> loadChanges;
+
+    /**
+     * One reservation's effect on the counters, copied from the event
+     * created also counts it towards the total
+     */
+    private record Change(boolean created, int sign, int reservationId, int tableId,
+                          ReservationStatus status, LocalDateTime time,
+                          LocalDateTime endTime, int partySize) {
+
+        static Change of(Reservation reservation, int sign, boolean created) {
+            return new Change(created, sign, reservation.getReservationId(),
+                reservation.getTableId(), reservation.getStatus(),
+                reservation.getReservationTime(), reservation.getEndTime(),
+                reservation.getPartySize());
+        }
+    }
+
+    /**
+     * Start recording changes for the next reset()
+     * Call before reading the counters, so that changes committed while they
+     * are read are not lost when they are replaced
+     */
+    public void beginLoad() {
+        lock.lock();
+        try {
+            loadChanges = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop recording changes; a no-op once reset() has run
+     */
+    public void endLoad() {
+        lock.lock();
+        try {
+            loadChanges = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replace all counters with values freshly read from the database
+     * Changes recorded since beginLoad() are replayed onto them. Replaying onto
+     * upcoming is idempotent; a change committed just before the totals query
+     * is counted twice until the next reconcile, where without the replay every
+     * change committed during the load would be lost until then
+     */
+    public void reset(long total, long confirmed, long guests, int tables,
+                      ReservationStore upcomingConfirmed) {
+        lock.lock();
+        try {
+            this.totalReservations = total;
+            this.confirmedReservations = confirmed;
+            this.confirmedGuests = guests;
+            this.tableCount = tables;
+            this.upcoming = upcomingConfirmed;
+            this.prunedThrough = null;
+            this.loaded = true;
+            if (loadChanges != null) {
+                for (Change change : loadChanges) {
+                    apply(change);
+                }
+                loadChanges = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.lock();
+        try {
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current dashboard statistics
+     */
+    public RestaurantStatistics snapshot() {
+        lock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int todayStart = ReservationStore.toEpochMinute(now.toLocalDate().atStartOfDay());
+            if (!now.toLocalDate().equals(prunedThrough)) {
+                upcoming.removeBefore(todayStart);
+                prunedThrough = now.toLocalDate();
+            }
+
+            RestaurantStatistics stats = new RestaurantStatistics();
+            stats.setTotalReservations((int) totalReservations);
+            stats.setActiveReservations(upcoming.countBetween(
+                ReservationStore.toEpochMinute(now), Integer.MAX_VALUE));
+            stats.setAveragePartySize(confirmedReservations == 0 ? 0.0
+                : (double) confirmedGuests / confirmedReservations);
+            int today = upcoming.countBetween(todayStart - 1, todayStart + 24 * 60);
+            stats.setTableUtilization(tableCount == 0 ? 0.0
+                : today * 100.0 / (tableCount * SEATINGS_PER_DAY));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==========================================
+    // EVENTS
+    // ==========================================
+
+    @Override
+    public void reservationCreated(Reservation reservation) {
+        lock.lock();
+        try {
+            record(Change.of(reservation, 1, true));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        lock.lock();
+        try {
+            record(Change.of(before, -1, false));
+            record(Change.of(after, 1, false));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        lock.lock();
+        try {
+            record(Change.of(before, -1, false));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==========================================
+    // INTERNALS (callers hold the lock)
+    // ==========================================
+
+    private void record(Change change) {
+        apply(change);
+        if (loadChanges != null) {
+            loadChanges.add(change);
+        }
+    }
+
+    private void apply(Change change) {
+        if (change.created()) totalReservations++;
+        if (change.status() != ReservationStatus.CONFIRMED) return;
+
+        int sign = change.sign();
+        confirmedReservations += sign;
+        confirmedGuests += (long) sign * change.partySize();
+
+        LocalDateTime time = change.time();
+        if (sign < 0) {
+            upcoming.remove(change.reservationId());
+        } else if (!time.toLocalDate().isBefore(LocalDate.now())) {
+            upcoming.put(change.reservationId(), change.tableId(), time, change.endTime());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.restaurant.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turn times: how long a booking holds its table, by party size and time of day
+ * Rules come from turn_time_rules and are flattened into one array indexed by
+ * party size and minute of the day, so a lookup on the booking path is an
+ * array read - no search and no allocation. Where rules overlap the one with
+ * the higher rule_id wins; times no rule covers use DEFAULT_TURN_MINUTES.
+ * Immutable; a reload builds a new instance.
+ */
+public final class TurnTimes {
+
+    public static final int DEFAULT_TURN_MINUTES = 120;
+    // Upper bound on any turn, enforced by a CHECK on turn_time_rules; range
+    // queries look back this far for bookings that may still be seated
+    public static final int MAX_TURN_MINUTES = 360;
+    // Larger parties use the rules for this size (the API accepts up to 20)
+    public static final int MAX_PARTY_SIZE = 20;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final short[] turns = new short[(MAX_PARTY_SIZE + 1) * MINUTES_PER_DAY];
+    private final short[] shortest = new short[MINUTES_PER_DAY];
+
+    /**
+     * One row of turn_time_rules; minutes are from midnight, to is exclusive
+     */
+    public record Rule(int minPartySize, int maxPartySize, int fromMinute, int toMinute,
+                       int turnMinutes) {}
+
+    private TurnTimes(List<Rule> rules) {
+        Arrays.fill(turns, (short) DEFAULT_TURN_MINUTES);
+        for (Rule rule : rules) {
+            int turn = Math.max(1, Math.min(rule.turnMinutes(), MAX_TURN_MINUTES));
+            int fromParty = Math.max(rule.minPartySize(), 1);
+            int toParty = Math.min(rule.maxPartySize(), MAX_PARTY_SIZE);
+            int fromMinute = Math.max(rule.fromMinute(), 0);
+            int toMinute = Math.min(rule.toMinute(), MINUTES_PER_DAY);
+            for (int party = fromParty; party <= toParty; party++) {
+                Arrays.fill(turns, party * MINUTES_PER_DAY + fromMinute,
+                    party * MINUTES_PER_DAY + Math.max(fromMinute, toMinute), (short) turn);
+            }
+        }
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            short min = Short.MAX_VALUE;
+            for (int party = 1; party <= MAX_PARTY_SIZE; party++) {
+                min = (short) Math.min(min, turns[party * MINUTES_PER_DAY + minute]);
+            }
+            shortest[minute] = min;
+        }
+    }
+
+    /**
+     * DEFAULT_TURN_MINUTES for every party at every time of day
+     */
+    public static TurnTimes defaults() {
+        return new TurnTimes(List.of());
+    }
+
+    public static TurnTimes of(List<Rule> rules) {
+        return new TurnTimes(rules);
+    }
+
+    /**
+     * Read turn_time_rules in rule_id order
+     */
+    public static TurnTimes load(Connection conn) throws SQLException {
+        String sql = "SELECT min_party_size, max_party_size, " +
+                    "HOUR(starts_at) * 60 + MINUTE(starts_at), " +
+                    "HOUR(ends_at) * 60 + MINUTE(ends_at), turn_minutes " +
+                    "FROM turn_time_rules ORDER BY rule_id";
+        List<Rule> rules = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                rules.add(new Rule(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                    rs.getInt(5)));
+            }
+        }
+        return new TurnTimes(rules);
+    }
+
+    /**
+     * Turn for a party starting at the given epoch minute (see ReservationStore)
+     */
+    public int turnMinutes(int partySize, int epochMinute) {
+        int party = Math.max(1, Math.min(partySize, MAX_PARTY_SIZE));
+        return turns[party * MINUTES_PER_DAY + Math.floorMod(epochMinute, MINUTES_PER_DAY)];
+    }
+
+    public int endMinute(int partySize, int epochMinute) {
+        return epochMinute + turnMinutes(partySize, epochMinute);
+    }
+
+    public LocalDateTime endOf(int partySize, LocalDateTime start) {
+        return start.plusMinutes(turnMinutes(partySize, ReservationStore.toEpochMinute(start)));
+    }
+
+    /**
+     * Shortest turn of any party starting at the given epoch minute; an idle
+     * gap shorter than this cannot be sold
+     */
+    public int shortestTurnMinutes(int epochMinute) {
+        return shortest[Math.floorMod(epochMinute, MINUTES_PER_DAY)];
+    }
+}
@@ -0,0 +1,357 @@
+package com.restaurant.api;
+
+import com.restaurant.database.DatabaseManager;
+import com.restaurant.database.Metrics;
+import com.restaurant.database.ReservationListener;
+import com.restaurant.database.Settings;
+import com.restaurant.database.TurnTimes;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.ReservationRequest;
+import com.restaurant.model.ReservationStatus;
+import com.restaurant.model.TableStatus;
+import com.restaurant.model.WaitlistEntry;
+import com.restaurant.model.WaitlistStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Waitlist for booking requests that found no free table
+ * Entries are persisted in the waitlist table and held in memory in one
+ * priority queue per (date, daypart), oldest first. A cancellation only
+ * marks the queues it could help dirty, so the cancel call itself does no
+ * extra work; shortly afterwards a worker thread re-runs availability for
+ * each dirty queue and confirms every entry that now fits in one batch.
+ * A periodic sweep expires entries whose time has passed and reloads the
+ * queues from the database, which also picks up entries and cancellations
+ * made on other nodes.
+ */
+@Component
+public class WaitlistManager implements ReservationListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistManager.class);
+
+    private static final Comparator<WaitlistEntry> OLDEST_FIRST =
+        Comparator.comparingInt(WaitlistEntry::getWaitlistId);
+
+    private final DatabaseManager dbManager;
+    private final long debounceMillis;
+    private final int maxBatch;
+    // Requests from this hour on queue for dinner, earlier ones for lunch
+    private final int dinnerFromHour;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<QueueKey, PriorityQueue<WaitlistEntry>> queues = new HashMap<>();
+    private final Set<QueueKey> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker;
+
+    public WaitlistManager(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        this.debounceMillis = Settings.getLong("restaurant.waitlist.debounceMs", 200);
+        this.maxBatch = Settings.getInt("restaurant.waitlist.maxBatch", 500);
+        this.dinnerFromHour = Settings.getInt("restaurant.waitlist.dinnerFromHour", 16);
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dbManager.addListener(this);
+
+        long sweepSeconds = Settings.getLong("restaurant.waitlist.sweepSeconds", 60);
+        worker.scheduleWithFixedDelay(this::sweep, 0, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a request that could not be booked
+     * @return the persisted entry, or null when it could not be stored
+     */
+    public WaitlistEntry join(ReservationRequest request) throws SQLException {
+        WaitlistEntry entry = new WaitlistEntry(0, request.getCustomerId(),
+            request.getReservationTime(), request.getPartySize(),
+            request.getSpecialRequests(), WaitlistStatus.WAITING);
+        int waitlistId = dbManager.addToWaitlist(entry);
+        if (waitlistId == -1) return null;
+        entry.setWaitlistId(waitlistId);
+
+        QueueKey key = keyOf(entry.getReservationTime());
+        lock.lock();
+        try {
+            queues.computeIfAbsent(key, k -> new PriorityQueue<>(OLDEST_FIRST)).add(entry);
+        } finally {
+            lock.unlock();
+        }
+        count("joined", 1);
+        // A table may have been freed since the booking attempt failed
+        dirty.add(key);
+        scheduleFlush();
+        return entry;
+    }
+
+    /**
+     * Take a WAITING entry off the waitlist; false when it was not waiting
+     */
+    public boolean leave(int waitlistId) throws SQLException {
+        if (!dbManager.cancelWaitlistEntry(waitlistId)) return false;
+        lock.lock();
+        try {
+            queues.values().removeIf(queue -> {
+                queue.removeIf(entry -> entry.getWaitlistId() == waitlistId);
+                return queue.isEmpty();
+            });
+        } finally {
+            lock.unlock();
+        }
+        count("left", 1);
+        return true;
+    }
+
+    /**
+     * Queued entries in the order they will be offered a table; all dates
+     * when date is null
+     */
+    public List<WaitlistEntry> getQueued(LocalDate date) {
+        List<WaitlistEntry> queued = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Map.Entry<QueueKey, PriorityQueue<WaitlistEntry>> entry : queues.entrySet()) {
+                if (date == null || entry.getKey().date().equals(date)) {
+                    queued.addAll(entry.getValue());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        queued.sort(Comparator.comparing(WaitlistEntry::getReservationTime)
+            .thenComparing(OLDEST_FIRST));
+        return queued;
+    }
+
+    // ==========================================
+    // RESERVATION EVENTS
+    // ==========================================
+
+    @Override
+    public void reservationCancelled(Reservation before) {
+        if (before.getStatus() == ReservationStatus.CONFIRMED) {
+            released(before);
+        }
+    }
+
+    @Override
+    public void reservationUpdated(Reservation before, Reservation after) {
+        if (before.getStatus() != ReservationStatus.CONFIRMED) return;
+        boolean moved = after.getStatus() != ReservationStatus.CONFIRMED
+            || !after.getReservationTime().equals(before.getReservationTime())
+            || !Objects.equals(after.getEndTime(), before.getEndTime())
+            || after.getTableId() != before.getTableId()
+            || !after.getJoinedTableIds().equals(before.getJoinedTableIds());
+        if (moved) {
+            released(before);
+        }
+    }
+
+    @Override
+    public void tableStatusChanged(int tableId, TableStatus status) {
+        if (status != TableStatus.AVAILABLE) return;
+        lock.lock();
+        try {
+            dirty.addAll(queues.keySet());
+        } finally {
+            lock.unlock();
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Requests starting up to the longest turn before the freed booking, and
+     * until it would have ended, may now fit
+     */
+    private void released(Reservation booking) {
+        LocalDateTime from = booking.getReservationTime().minusMinutes(TurnTimes.MAX_TURN_MINUTES);
+        LocalDateTime to = booking.getEndTime() != null ? booking.getEndTime()
+            : booking.getReservationTime().plusMinutes(TurnTimes.MAX_TURN_MINUTES);
+        boolean any = false;
+        lock.lock();
+        try {
+            for (QueueKey key : queues.keySet()) {
+                if (start(key).isBefore(to) && end(key).isAfter(from)) {
+                    any |= dirty.add(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (any) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            worker.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ==========================================
+    // WORKER
+    // ==========================================
+
+    private void flush() {
+        // Changes arriving from here on schedule the next flush
+        flushScheduled.set(false);
+        Set<QueueKey> keys = new HashSet<>(dirty);
+        dirty.removeAll(keys);
+
+        for (QueueKey key : keys) {
+            try {
+                confirm(key);
+            } catch (Exception e) {
+                log.warn("Waitlist confirmation failed for {}", key, e);
+            }
+        }
+    }
+
+    /**
+     * Offer the freed tables to the queue's entries, oldest first
+     */
+    private void confirm(QueueKey key) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        List<WaitlistEntry> batch = new ArrayList<>();
+        lock.lock();
+        try {
+            PriorityQueue<WaitlistEntry> queue = queues.get(key);
+            if (queue == null) return;
+            List<WaitlistEntry> ordered = new ArrayList<>(queue);
+            ordered.sort(OLDEST_FIRST);
+            for (WaitlistEntry entry : ordered) {
+                if (batch.size() == maxBatch) break;
+                if (entry.getReservationTime().isAfter(now)) {
+                    batch.add(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch.isEmpty()) return;
+
+        List<Reservation> booked = dbManager.confirmWaitlist(batch);
+        int confirmed = 0;
+        lock.lock();
+        try {
+            PriorityQueue<WaitlistEntry> queue = queues.get(key);
+            for (int i = 0; i < batch.size(); i++) {
+                if (booked.get(i) != null) {
+                    confirmed++;
+                } else if (batch.get(i).getStatus() == WaitlistStatus.WAITING) {
+                    continue;
+                }
+                // Booked here, or no longer waiting in the database
+                if (queue != null) queue.remove(batch.get(i));
+            }
+            if (queue != null && queue.isEmpty()) {
+                queues.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (confirmed > 0) {
+            log.info("Waitlist {}: confirmed {} of {} waiting entries", key, confirmed, batch.size());
+            count("confirmed", confirmed);
+        }
+    }
+
+    /**
+     * Expire past entries, reload the queues from the database and retry
+     * every queue
+     */
+    private void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int expired = dbManager.expireWaitlist(now);
+            if (expired > 0) {
+                count("expired", expired);
+            }
+
+            List<WaitlistEntry> waiting = dbManager.getWaitingEntries(now);
+            int loadedUpTo = 0;
+            Map<QueueKey, PriorityQueue<WaitlistEntry>> loaded = new HashMap<>();
+            for (WaitlistEntry entry : waiting) {
+                loaded.computeIfAbsent(keyOf(entry.getReservationTime()),
+                    k -> new PriorityQueue<>(OLDEST_FIRST)).add(entry);
+                loadedUpTo = Math.max(loadedUpTo, entry.getWaitlistId());
+            }
+            lock.lock();
+            try {
+                // Keep entries that joined on this node after the read
+                for (Map.Entry<QueueKey, PriorityQueue<WaitlistEntry>> entry : queues.entrySet()) {
+                    for (WaitlistEntry queued : entry.getValue()) {
+                        if (queued.getWaitlistId() > loadedUpTo) {
+                            loaded.computeIfAbsent(entry.getKey(),
+                                k -> new PriorityQueue<>(OLDEST_FIRST)).add(queued);
+                        }
+                    }
+                }
+                queues.clear();
+                queues.putAll(loaded);
+                dirty.addAll(queues.keySet());
+            } finally {
+                lock.unlock();
+            }
+            flush();
+        } catch (Exception e) {
+            log.warn("Waitlist sweep failed", e);
+        }
+    }
+
+    private static void count(String outcome, long delta) {
+        Metrics.registry().increment(Metrics.WAITLIST, "outcome", outcome, delta);
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+
+    // ==========================================
+    // QUEUES
+    // ==========================================
+
+    /**
+     * daypart 0 is lunch (before dinnerFromHour), 1 is dinner
+     */
+    private record QueueKey(LocalDate date, int daypart) {}
+
+    private QueueKey keyOf(LocalDateTime time) {
+        return new QueueKey(time.toLocalDate(), time.getHour() < dinnerFromHour ? 0 : 1);
+    }
+
+    private LocalDateTime start(QueueKey key) {
+        return key.daypart() == 0 ? key.date().atStartOfDay() : key.date().atTime(dinnerFromHour, 0);
+    }
+
+    private LocalDateTime end(QueueKey key) {
+        return key.daypart() == 0 ? key.date().atTime(dinnerFromHour, 0)
+            : key.date().plusDays(1).atStartOfDay();
+    }
+}
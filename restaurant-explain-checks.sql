@@ -0,0 +1,82 @@
+-- Restaurant Reservation System - Index Usage Regression Checks
+-- Run after restaurant-schema.sql against a populated database:
+--   mysql -u root -p restaurant_db < restaurant-explain-checks.sql
+-- Each EXPLAIN must report the index named in its comment in the `key`
+-- column and a `type` of range/ref (never ALL). A full scan here means a
+-- query in DatabaseManager or the schema routines has become non-sargable.
+
+USE restaurant_db;
+
+-- getReservationsByDate / getReservationsInRange  -> key: idx_time
+EXPLAIN SELECT * FROM reservations
+WHERE reservation_time >= '2024-12-20 00:00:00' AND reservation_time < '2024-12-21 00:00:00'
+ORDER BY reservation_time;
+
+-- getReservationsByTable  -> key: idx_table_time
+EXPLAIN SELECT * FROM reservations
+WHERE table_id = 3
+  AND reservation_time >= '2024-12-20 00:00:00' AND reservation_time < '2024-12-21 00:00:00'
+ORDER BY reservation_time;
+
+-- getReservationsByStatus (range)  -> key: idx_status_time
+EXPLAIN SELECT * FROM reservations
+WHERE status = 'CONFIRMED'
+  AND reservation_time >= '2024-12-20 00:00:00' AND reservation_time < '2024-12-21 00:00:00'
+ORDER BY reservation_time;
+
+-- Overlap checks range reservation_time from the longest turn (360 minutes)
+-- before the start to the new booking's end; end_time is a residual filter
+
+-- findAvailableTable fallback subquery / FindAvailableTable  -> key: idx_time_range
+EXPLAIN SELECT r.table_id FROM reservations r
+WHERE r.reservation_time > '2024-12-20 12:00:00' AND r.reservation_time < '2024-12-20 19:45:00'
+  AND r.end_time > '2024-12-20 18:00:00'
+  AND r.status = 'CONFIRMED';
+
+-- prevent_double_booking trigger / hasConflict  -> key: idx_table_time
+EXPLAIN SELECT COUNT(*) FROM reservations
+WHERE table_id = 3
+  AND reservation_time > '2024-12-20 12:00:00' AND reservation_time < '2024-12-20 19:45:00'
+  AND end_time > '2024-12-20 18:00:00'
+  AND status = 'CONFIRMED';
+
+-- GetDailyStatistics / getStatistics total  -> key: idx_time
+EXPLAIN SELECT COUNT(*) FROM reservations
+WHERE reservation_time >= '2024-12-01' AND reservation_time < '2025-01-01';
+
+-- hasConflict / prevent_double_booking joined-table branch  -> key: idx_joined_table
+EXPLAIN SELECT 1 FROM reservation_tables rt
+JOIN reservations r ON r.reservation_id = rt.reservation_id
+WHERE rt.table_id = 4
+  AND r.reservation_time > '2024-12-20 12:00:00' AND r.reservation_time < '2024-12-20 19:45:00'
+  AND r.end_time > '2024-12-20 18:00:00'
+  AND r.status = 'CONFIRMED';
+
+-- getWaitingEntries / expireWaitlist  -> key: idx_waitlist_status_time
+EXPLAIN SELECT waitlist_id FROM waitlist
+WHERE status = 'WAITING' AND reservation_time >= '2024-12-20 18:00:00'
+ORDER BY waitlist_id;
+
+-- ReservationArchiver chunk scan  -> key: PRIMARY
+EXPLAIN SELECT reservation_id FROM reservations
+WHERE reservation_id > 1000 AND reservation_time < '2024-01-01'
+  AND status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW')
+ORDER BY reservation_id LIMIT 1000;
+
+-- ReservationArchiver chunk copy/delete: only the chunk's id range is
+-- scanned and locked  -> key: PRIMARY
+EXPLAIN DELETE FROM reservations
+WHERE reservation_id > 1000 AND reservation_id <= 2000 AND reservation_time < '2024-01-01'
+  AND status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW');
+
+-- getReservationsInRange archive side  -> key: idx_archive_time,
+-- partitions: only p202312
+EXPLAIN SELECT * FROM reservations_archive
+WHERE reservation_time >= '2023-12-20 00:00:00' AND reservation_time < '2023-12-21 00:00:00'
+ORDER BY reservation_time;
+
+-- ReportRollups.report: one row per table and daypart of each day  -> key: PRIMARY
+EXPLAIN SELECT rollup_date, SUM(bookings), SUM(covers), SUM(cancellations),
+  SUM(no_shows), SUM(booked_minutes) FROM reservation_rollups
+WHERE rollup_date >= '2024-12-01' AND rollup_date <= '2024-12-31'
+GROUP BY rollup_date;
@@ -1,6 +1,7 @@
 package com.restaurant.model;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 public class Reservation {
@@ -8,15 +9,19 @@ public class Reservation {
     private int customerId;
     private int tableId;
     private LocalDateTime reservationTime;
+    // When the table is free again: reservationTime plus the party's turn time
+    private LocalDateTime endTime;
     private int partySize;
-    private String status; // CONFIRMED, CANCELLED, COMPLETED
+    private ReservationStatus status;
     private String specialRequests;
+    // Tables pushed together with tableId for a large party
+    private List<Integer> joinedTableIds = List.of();
 
     public Reservation() {}
 
     public Reservation(int reservationId, int customerId, int tableId, 
                       LocalDateTime reservationTime, int partySize, 
-                      String status, String specialRequests) {
+                      ReservationStatus status, String specialRequests) {
         this.reservationId = reservationId;
         this.customerId = customerId;
         this.tableId = tableId;
@@ -41,16 +46,24 @@ public class Reservation {
         this.reservationTime = reservationTime; 
     }
 
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
     public int getPartySize() { return partySize; }
     public void setPartySize(int partySize) { this.partySize = partySize; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public ReservationStatus getStatus() { return status; }
+    public void setStatus(ReservationStatus status) { this.status = status; }
 
     public String getSpecialRequests() { return specialRequests; }
     public void setSpecialRequests(String specialRequests) { 
         this.specialRequests = specialRequests; 
     }
+
+    public List<Integer> getJoinedTableIds() { return joinedTableIds; }
+    public void setJoinedTableIds(List<Integer> joinedTableIds) { 
+        this.joinedTableIds = joinedTableIds; 
+    }
 }
 
 // ==========================================
@@ -94,13 +107,13 @@ public class Table {
     private int tableId;
     private int tableNumber;
     private int capacity;
-    private String location; // INDOOR, OUTDOOR, PATIO, BAR
-    private String status; // AVAILABLE, OCCUPIED, RESERVED, MAINTENANCE
+    private TableLocation location;
+    private TableStatus status;
 
     public Table() {}
 
     public Table(int tableId, int tableNumber, int capacity, 
-                String location, String status) {
+                TableLocation location, TableStatus status) {
         this.tableId = tableId;
         this.tableNumber = tableNumber;
         this.capacity = capacity;
@@ -118,11 +131,126 @@ public class Table {
     public int getCapacity() { return capacity; }
     public void setCapacity(int capacity) { this.capacity = capacity; }
 
-    public String getLocation() { return location; }
-    public void setLocation(String location) { this.location = location; }
+    public TableLocation getLocation() { return location; }
+    public void setLocation(TableLocation location) { this.location = location; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public TableStatus getStatus() { return status; }
+    public void setStatus(TableStatus status) { this.status = status; }
+}
+
+// ==========================================
+// WAITLIST MODEL
+// ==========================================
+
+/**
+ * A booking request queued because no table was free; confirmed into a
+ * reservation when a cancellation frees a seating for it
+ */
+public class WaitlistEntry {
+    private int waitlistId;
+    private int customerId;
+    private LocalDateTime reservationTime;
+    private int partySize;
+    private String specialRequests;
+    private WaitlistStatus status;
+    // Set once the entry has been confirmed
+    private int reservationId;
+
+    public WaitlistEntry() {}
+
+    public WaitlistEntry(int waitlistId, int customerId, LocalDateTime reservationTime,
+                         int partySize, String specialRequests, WaitlistStatus status) {
+        this.waitlistId = waitlistId;
+        this.customerId = customerId;
+        this.reservationTime = reservationTime;
+        this.partySize = partySize;
+        this.specialRequests = specialRequests;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public int getWaitlistId() { return waitlistId; }
+    public void setWaitlistId(int waitlistId) { this.waitlistId = waitlistId; }
+
+    public int getCustomerId() { return customerId; }
+    public void setCustomerId(int customerId) { this.customerId = customerId; }
+
+    public LocalDateTime getReservationTime() { return reservationTime; }
+    public void setReservationTime(LocalDateTime reservationTime) { 
+        this.reservationTime = reservationTime; 
+    }
+
+    public int getPartySize() { return partySize; }
+    public void setPartySize(int partySize) { this.partySize = partySize; }
+
+    public String getSpecialRequests() { return specialRequests; }
+    public void setSpecialRequests(String specialRequests) { 
+        this.specialRequests = specialRequests; 
+    }
+
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+
+    public int getReservationId() { return reservationId; }
+    public void setReservationId(int reservationId) { this.reservationId = reservationId; }
+}
+
+// ==========================================
+// STATUS / LOCATION ENUMS
+// Constants are declared in the same order as the MySQL ENUM columns, so
+// fromIndex() decodes the 1-based index returned by SELECT column+0
+// ==========================================
+
+public enum ReservationStatus {
+    CONFIRMED, CANCELLED, COMPLETED, NO_SHOW;
+
+    private static final ReservationStatus[] VALUES = values();
+
+    /**
+     * 0 (NULL or an invalid value in MySQL) decodes to null
+     */
+    public static ReservationStatus fromIndex(int index) {
+        return index == 0 ? null : VALUES[index - 1];
+    }
+}
+
+public enum TableStatus {
+    AVAILABLE, OCCUPIED, RESERVED, MAINTENANCE;
+
+    private static final TableStatus[] VALUES = values();
+
+    /**
+     * 0 (NULL or an invalid value in MySQL) decodes to null
+     */
+    public static TableStatus fromIndex(int index) {
+        return index == 0 ? null : VALUES[index - 1];
+    }
+}
+
+public enum WaitlistStatus {
+    WAITING, CONFIRMED, EXPIRED, CANCELLED;
+
+    private static final WaitlistStatus[] VALUES = values();
+
+    /**
+     * 0 (NULL or an invalid value in MySQL) decodes to null
+     */
+    public static WaitlistStatus fromIndex(int index) {
+        return index == 0 ? null : VALUES[index - 1];
+    }
+}
+
+public enum TableLocation {
+    INDOOR, OUTDOOR, PATIO, BAR;
+
+    private static final TableLocation[] VALUES = values();
+
+    /**
+     * 0 (NULL or an invalid value in MySQL) decodes to null
+     */
+    public static TableLocation fromIndex(int index) {
+        return index == 0 ? null : VALUES[index - 1];
+    }
 }
 
 // ==========================================
@@ -134,6 +262,9 @@ public class ReservationRequest {
     private LocalDateTime reservationTime;
     private int partySize;
     private String specialRequests;
+    private TableLocation preferredLocation;
+    // Queue the request on the waitlist when no table is free
+    private boolean joinWaitlist;
 
     public ReservationRequest() {}
 
@@ -153,12 +284,22 @@ public class ReservationRequest {
     public void setSpecialRequests(String specialRequests) { 
         this.specialRequests = specialRequests; 
     }
+
+    public TableLocation getPreferredLocation() { return preferredLocation; }
+    public void setPreferredLocation(TableLocation preferredLocation) { 
+        this.preferredLocation = preferredLocation; 
+    }
+
+    public boolean isJoinWaitlist() { return joinWaitlist; }
+    public void setJoinWaitlist(boolean joinWaitlist) { this.joinWaitlist = joinWaitlist; }
 }
 
 public class ReservationResponse {
     private boolean success;
     private String message;
     private Reservation reservation;
+    // Set when the request was queued instead of booked
+    private WaitlistEntry waitlistEntry;
 
     public ReservationResponse(boolean success, String message, Reservation reservation) {
         this.success = success;
@@ -175,15 +316,43 @@ public class ReservationResponse {
 
     public Reservation getReservation() { return reservation; }
     public void setReservation(Reservation reservation) { this.reservation = reservation; }
+
+    public WaitlistEntry getWaitlistEntry() { return waitlistEntry; }
+    public void setWaitlistEntry(WaitlistEntry waitlistEntry) { 
+        this.waitlistEntry = waitlistEntry; 
+    }
+}
+
+public class BatchReservationResponse {
+    private int booked;
+    private int failed;
+    private List<ReservationResponse> results;
+
+    public BatchReservationResponse(List<ReservationResponse> results) {
+        this.results = results;
+        for (ReservationResponse result : results) {
+            if (result.isSuccess()) booked++; else failed++;
+        }
+    }
+
+    // Getters and Setters
+    public int getBooked() { return booked; }
+    public void setBooked(int booked) { this.booked = booked; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<ReservationResponse> getResults() { return results; }
+    public void setResults(List<ReservationResponse> results) { this.results = results; }
 }
 
 public class TableStatusRequest {
-    private String status;
+    private TableStatus status;
 
     public TableStatusRequest() {}
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public TableStatus getStatus() { return status; }
+    public void setStatus(TableStatus status) { this.status = status; }
 }
 
 public class TimeSlot {
@@ -47,6 +47,9 @@ CREATE TABLE IF NOT EXISTS reservations (
     customer_id INT NOT NULL,
     table_id INT NOT NULL,
     reservation_time DATETIME NOT NULL,
+    -- reservation_time plus the party's turn; set by the application, or by
+    -- prevent_double_booking from turn_time_rules when a writer leaves it out
+    end_time DATETIME,
     party_size INT NOT NULL,
     status ENUM('CONFIRMED', 'CANCELLED', 'COMPLETED', 'NO_SHOW') DEFAULT 'CONFIRMED',
     special_requests TEXT,
@@ -60,7 +63,155 @@ CREATE TABLE IF NOT EXISTS reservations (
     INDEX idx_table (table_id),
     INDEX idx_time (reservation_time),
     INDEX idx_status (status),
-    INDEX idx_date (DATE(reservation_time))
+    -- Journal catch-up on restart (ReservationJournal)
+    INDEX idx_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- TABLE JOINS (adjacent tables that can be pushed together)
+-- ==========================================
+
+-- Each pair is stored once, lower table_id first. MySQL rejects a CHECK on
+-- columns with ON DELETE CASCADE (error 3823), so the order is a convention:
+-- readers treat a pair as joinable both ways and ignore a table joined to
+-- itself.
+CREATE TABLE IF NOT EXISTS table_joins (
+    table_id INT NOT NULL,
+    joined_table_id INT NOT NULL,
+    
+    PRIMARY KEY (table_id, joined_table_id),
+    FOREIGN KEY (table_id) REFERENCES tables(table_id) ON DELETE CASCADE,
+    FOREIGN KEY (joined_table_id) REFERENCES tables(table_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- RESERVATION TABLES (extra tables held by a booking on joined tables)
+-- ==========================================
+
+-- reservations.table_id is the booking's first table; the rest are listed here
+CREATE TABLE IF NOT EXISTS reservation_tables (
+    reservation_id INT NOT NULL,
+    table_id INT NOT NULL,
+    
+    PRIMARY KEY (reservation_id, table_id),
+    FOREIGN KEY (reservation_id) REFERENCES reservations(reservation_id) ON DELETE CASCADE,
+    FOREIGN KEY (table_id) REFERENCES tables(table_id) ON DELETE CASCADE,
+    
+    INDEX idx_joined_table (table_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- TURN TIME RULES (how long a booking holds its table)
+-- ==========================================
+
+-- Times are [starts_at, ends_at); where rules overlap the highest rule_id
+-- wins, and times no rule covers get 120 minutes. The application loads the
+-- rules with the availability index, so edits apply on its next reload.
+CREATE TABLE IF NOT EXISTS turn_time_rules (
+    rule_id INT PRIMARY KEY AUTO_INCREMENT,
+    min_party_size INT NOT NULL,
+    max_party_size INT NOT NULL,
+    starts_at TIME NOT NULL,
+    ends_at TIME NOT NULL,
+    turn_minutes INT NOT NULL,
+    
+    CHECK (min_party_size <= max_party_size),
+    CHECK (starts_at < ends_at),
+    -- Overlap checks look back this far (TurnTimes.MAX_TURN_MINUTES)
+    CHECK (turn_minutes BETWEEN 15 AND 360)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- WAITLIST (requests queued until a cancellation frees a table)
+-- ==========================================
+
+CREATE TABLE IF NOT EXISTS waitlist (
+    waitlist_id INT PRIMARY KEY AUTO_INCREMENT,
+    customer_id INT NOT NULL,
+    reservation_time DATETIME NOT NULL,
+    party_size INT NOT NULL,
+    special_requests TEXT,
+    status ENUM('WAITING', 'CONFIRMED', 'EXPIRED', 'CANCELLED') DEFAULT 'WAITING',
+    -- The booking made when the entry was confirmed
+    reservation_id INT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE,
+    FOREIGN KEY (reservation_id) REFERENCES reservations(reservation_id) ON DELETE SET NULL,
+    
+    -- Open entries by time: queue reload and expiry
+    INDEX idx_waitlist_status_time (status, reservation_time),
+    INDEX idx_waitlist_customer (customer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- REPLICATION HEARTBEAT (read replica lag)
+-- ==========================================
+
+-- Each application node writes its clock here every second on the primary
+-- and reads it back from the replicas; the age of the replicated value is
+-- the replica's lag
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    node VARCHAR(128) PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ==========================================
+-- RESERVATIONS ARCHIVE (finished reservations moved out by ReservationArchiver)
+-- ==========================================
+
+-- Same columns as reservations, with the booking's joined tables kept as a
+-- list. One partition per month of reservation_time: the archiver adds
+-- months as it reaches them and drops expired ones whole. Partitioned
+-- tables cannot have foreign keys, and the primary key must include the
+-- partitioning column.
+CREATE TABLE IF NOT EXISTS reservations_archive (
+    reservation_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    table_id INT NOT NULL,
+    reservation_time DATETIME NOT NULL,
+    end_time DATETIME NOT NULL,
+    party_size INT NOT NULL,
+    status ENUM('CONFIRMED', 'CANCELLED', 'COMPLETED', 'NO_SHOW') NOT NULL,
+    special_requests TEXT,
+    -- Tables joined to table_id, as "3,4"; NULL for most rows
+    joined_table_ids VARCHAR(255) NULL,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    PRIMARY KEY (reservation_id, reservation_time),
+    INDEX idx_archive_time (reservation_time),
+    INDEX idx_archive_customer (customer_id),
+    INDEX idx_archive_table_time (table_id, reservation_time),
+    INDEX idx_archive_status_time (status, reservation_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE (TO_DAYS(reservation_time)) (
+    PARTITION p_old VALUES LESS THAN (TO_DAYS('2024-01-01')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- ==========================================
+-- RESERVATION ROLLUPS (reporting aggregates kept by ReportRollups)
+-- ==========================================
+
+-- Totals per day, table and daypart for the reservations starting then.
+-- Kept up to date from committed changes and rebuilt from reservations and
+-- reservations_archive by the backfill; reports read only this table.
+CREATE TABLE IF NOT EXISTS reservation_rollups (
+    rollup_date DATE NOT NULL,
+    table_id INT NOT NULL,
+    -- 0 lunch, 1 dinner (from restaurant.reports.dinnerFromHour)
+    daypart TINYINT NOT NULL,
+    bookings INT NOT NULL DEFAULT 0,
+    covers INT NOT NULL DEFAULT 0,
+    cancellations INT NOT NULL DEFAULT 0,
+    no_shows INT NOT NULL DEFAULT 0,
+    -- Table minutes held by confirmed and completed reservations
+    booked_minutes INT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (rollup_date, table_id, daypart)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ==========================================
@@ -80,6 +231,26 @@ INSERT INTO tables (table_number, capacity, location, status) VALUES
 (9, 2, 'BAR', 'AVAILABLE'),
 (10, 2, 'BAR', 'AVAILABLE');
 
+-- Insert sample table joins (neighbouring indoor tables, the two bar tables)
+INSERT INTO table_joins (table_id, joined_table_id) VALUES
+(1, 2),
+(2, 3),
+(3, 4),
+(4, 6),
+(6, 8),
+(9, 10);
+
+-- Insert sample turn time rules (lunch and dinner; other times get 120 minutes)
+INSERT INTO turn_time_rules (min_party_size, max_party_size, starts_at, ends_at, turn_minutes) VALUES
+(1, 2, '11:00:00', '15:00:00', 60),
+(3, 4, '11:00:00', '15:00:00', 75),
+(5, 6, '11:00:00', '15:00:00', 90),
+(7, 20, '11:00:00', '15:00:00', 120),
+(1, 2, '17:00:00', '22:00:00', 90),
+(3, 4, '17:00:00', '22:00:00', 105),
+(5, 6, '17:00:00', '22:00:00', 120),
+(7, 20, '17:00:00', '22:00:00', 150);
+
 -- Insert sample customers
 INSERT INTO customers (name, email, phone) VALUES
 ('John Smith', 'john.smith@email.com', '555-0101'),
@@ -89,25 +260,54 @@ INSERT INTO customers (name, email, phone) VALUES
 ('David Wilson', 'dwilson@email.com', '555-0105');
 
 -- Insert sample reservations
-INSERT INTO reservations (customer_id, table_id, reservation_time, party_size, status, special_requests) VALUES
-(1, 3, '2024-12-20 18:00:00', 4, 'CONFIRMED', 'Window seat preferred'),
-(2, 1, '2024-12-20 19:00:00', 2, 'CONFIRMED', 'Anniversary dinner'),
-(3, 6, '2024-12-21 18:30:00', 6, 'CONFIRMED', 'Birthday celebration'),
-(4, 4, '2024-12-21 20:00:00', 4, 'CONFIRMED', NULL),
-(5, 9, '2024-12-22 17:00:00', 2, 'CONFIRMED', 'Dietary restrictions: vegetarian');
+INSERT INTO reservations (customer_id, table_id, reservation_time, end_time, party_size, status, special_requests) VALUES
+(1, 3, '2024-12-20 18:00:00', '2024-12-20 19:45:00', 4, 'CONFIRMED', 'Window seat preferred'),
+(2, 1, '2024-12-20 19:00:00', '2024-12-20 20:30:00', 2, 'CONFIRMED', 'Anniversary dinner'),
+(3, 6, '2024-12-21 18:30:00', '2024-12-21 20:30:00', 6, 'CONFIRMED', 'Birthday celebration'),
+(4, 4, '2024-12-21 20:00:00', '2024-12-21 21:45:00', 4, 'CONFIRMED', NULL),
+(5, 9, '2024-12-22 17:00:00', '2024-12-22 18:30:00', 2, 'CONFIRMED', 'Dietary restrictions: vegetarian');
 
 -- ==========================================
 -- OPTIMIZED QUERIES FOR COMMON OPERATIONS
 -- ==========================================
 
+-- Turn time for a party starting at the given time; same lookup as the
+-- application's TurnTimes (parties above 20 use the rules for 20)
+DELIMITER //
+CREATE FUNCTION TurnMinutes(
+    p_party_size INT,
+    p_start DATETIME
+)
+RETURNS INT
+READS SQL DATA
+BEGIN
+    DECLARE v_turn INT;
+    
+    SELECT turn_minutes INTO v_turn
+    FROM turn_time_rules
+    WHERE LEAST(p_party_size, 20) BETWEEN min_party_size AND max_party_size
+      AND TIME(p_start) >= starts_at
+      AND TIME(p_start) < ends_at
+    ORDER BY rule_id DESC
+    LIMIT 1;
+    
+    RETURN COALESCE(v_turn, 120);
+END //
+DELIMITER ;
+
 -- Find available tables for a specific time and party size
--- This query is optimized with indexes for fast lookups
+-- This query is optimized with indexes for fast lookups; bookings are
+-- ranged on reservation_time back to the longest possible turn (360
+-- minutes) and end_time decides the overlap
 DELIMITER //
 CREATE PROCEDURE FindAvailableTable(
     IN p_party_size INT,
     IN p_reservation_time DATETIME
 )
 BEGIN
+    DECLARE v_end DATETIME DEFAULT
+        p_reservation_time + INTERVAL TurnMinutes(p_party_size, p_reservation_time) MINUTE;
+    
     SELECT t.* 
     FROM tables t
     WHERE t.capacity >= p_party_size 
@@ -115,8 +315,18 @@ BEGIN
       AND t.table_id NOT IN (
           SELECT r.table_id 
           FROM reservations r
-          WHERE r.status = 'CONFIRMED'
-            AND ABS(TIMESTAMPDIFF(MINUTE, r.reservation_time, p_reservation_time)) < 120
+          WHERE r.reservation_time > p_reservation_time - INTERVAL 360 MINUTE
+            AND r.reservation_time < v_end
+            AND r.end_time > p_reservation_time
+            AND r.status = 'CONFIRMED'
+          UNION ALL
+          SELECT rt.table_id
+          FROM reservation_tables rt
+          JOIN reservations r ON r.reservation_id = rt.reservation_id
+          WHERE r.reservation_time > p_reservation_time - INTERVAL 360 MINUTE
+            AND r.reservation_time < v_end
+            AND r.end_time > p_reservation_time
+            AND r.status = 'CONFIRMED'
       )
     ORDER BY t.capacity ASC
     LIMIT 1;
@@ -135,7 +345,8 @@ BEGIN
         COUNT(CASE WHEN status = 'CANCELLED' THEN 1 END) as cancelled,
         COUNT(CASE WHEN status = 'NO_SHOW' THEN 1 END) as no_shows
     FROM reservations
-    WHERE DATE(reservation_time) = p_date;
+    WHERE reservation_time >= p_date
+      AND reservation_time < p_date + INTERVAL 1 DAY;
 END //
 DELIMITER ;
 
@@ -196,7 +407,8 @@ SELECT
 FROM reservations r
 JOIN customers c ON r.customer_id = c.customer_id
 JOIN tables t ON r.table_id = t.table_id
-WHERE DATE(r.reservation_time) = CURDATE()
+WHERE r.reservation_time >= CURDATE()
+  AND r.reservation_time < CURDATE() + INTERVAL 1 DAY
 ORDER BY r.reservation_time;
 
 -- Table occupancy view
@@ -208,7 +420,8 @@ SELECT
     t.location,
     t.status,
     COUNT(r.reservation_id) as total_bookings,
-    SUM(CASE WHEN DATE(r.reservation_time) = CURDATE() THEN 1 ELSE 0 END) as today_bookings
+    SUM(CASE WHEN r.reservation_time >= CURDATE()
+              AND r.reservation_time < CURDATE() + INTERVAL 1 DAY THEN 1 ELSE 0 END) as today_bookings
 FROM tables t
 LEFT JOIN reservations r ON t.table_id = r.table_id 
     AND r.status = 'CONFIRMED'
@@ -221,20 +434,120 @@ ORDER BY t.table_number;
 -- ==========================================
 
 -- Prevent double booking
+-- Last line of defence; the application claims tables under a row lock on
+-- `tables` and only hits this on a race with a writer that bypasses it
 DELIMITER //
 CREATE TRIGGER prevent_double_booking
 BEFORE INSERT ON reservations
 FOR EACH ROW
 BEGIN
-    DECLARE existing_count INT;
+    IF NEW.end_time IS NULL THEN
+        SET NEW.end_time = NEW.reservation_time
+            + INTERVAL TurnMinutes(NEW.party_size, NEW.reservation_time) MINUTE;
+    END IF;
+    
+    -- Range on idx_table_time; stops at the first overlapping booking
+    IF NEW.status = 'CONFIRMED' AND (EXISTS (
+        SELECT 1
+        FROM reservations
+        WHERE table_id = NEW.table_id
+          AND reservation_time > NEW.reservation_time - INTERVAL 360 MINUTE
+          AND reservation_time < NEW.end_time
+          AND end_time > NEW.reservation_time
+          AND status = 'CONFIRMED'
+    ) OR EXISTS (
+        -- The table may also be held as part of a joined booking
+        SELECT 1
+        FROM reservation_tables rt
+        JOIN reservations r ON r.reservation_id = rt.reservation_id
+        WHERE rt.table_id = NEW.table_id
+          AND r.reservation_time > NEW.reservation_time - INTERVAL 360 MINUTE
+          AND r.reservation_time < NEW.end_time
+          AND r.end_time > NEW.reservation_time
+          AND r.status = 'CONFIRMED'
+    )) THEN
+        SIGNAL SQLSTATE '45000'
+        SET MESSAGE_TEXT = 'Table is already booked for this time slot';
+    END IF;
+END //
+DELIMITER ;
+
+-- Same guard when a reservation is moved to another table or time
+DELIMITER //
+CREATE TRIGGER prevent_double_booking_on_update
+BEFORE UPDATE ON reservations
+FOR EACH ROW
+BEGIN
+    -- A writer that moves the booking without setting end_time gets the configured turn
+    IF (NEW.reservation_time <> OLD.reservation_time OR NEW.party_size <> OLD.party_size)
+       AND NEW.end_time <=> OLD.end_time THEN
+        SET NEW.end_time = NEW.reservation_time
+            + INTERVAL TurnMinutes(NEW.party_size, NEW.reservation_time) MINUTE;
+    END IF;
     
-    SELECT COUNT(*) INTO existing_count
+    IF NEW.status = 'CONFIRMED'
+       AND (NEW.table_id <> OLD.table_id OR NEW.reservation_time <> OLD.reservation_time
+            OR NEW.end_time > OLD.end_time)
+       AND (EXISTS (
+        SELECT 1
+        FROM reservations
+        WHERE table_id = NEW.table_id
+          AND reservation_time > NEW.reservation_time - INTERVAL 360 MINUTE
+          AND reservation_time < NEW.end_time
+          AND end_time > NEW.reservation_time
+          AND status = 'CONFIRMED'
+          AND reservation_id <> NEW.reservation_id
+    ) OR EXISTS (
+        SELECT 1
+        FROM reservation_tables rt
+        JOIN reservations r ON r.reservation_id = rt.reservation_id
+        WHERE rt.table_id = NEW.table_id
+          AND r.reservation_time > NEW.reservation_time - INTERVAL 360 MINUTE
+          AND r.reservation_time < NEW.end_time
+          AND r.end_time > NEW.reservation_time
+          AND r.status = 'CONFIRMED'
+          AND r.reservation_id <> NEW.reservation_id
+    )) THEN
+        SIGNAL SQLSTATE '45000'
+        SET MESSAGE_TEXT = 'Table is already booked for this time slot';
+    END IF;
+END //
+DELIMITER ;
+
+-- Same guard for each extra table of a booking on joined tables
+DELIMITER //
+CREATE TRIGGER prevent_double_booking_on_join
+BEFORE INSERT ON reservation_tables
+FOR EACH ROW
+BEGIN
+    DECLARE v_time DATETIME;
+    DECLARE v_end DATETIME;
+    DECLARE v_status VARCHAR(20);
+    
+    SELECT reservation_time, end_time, status INTO v_time, v_end, v_status
     FROM reservations
-    WHERE table_id = NEW.table_id
-      AND status = 'CONFIRMED'
-      AND ABS(TIMESTAMPDIFF(MINUTE, reservation_time, NEW.reservation_time)) < 120;
+    WHERE reservation_id = NEW.reservation_id;
     
-    IF existing_count > 0 THEN
+    IF v_status = 'CONFIRMED' AND (EXISTS (
+        SELECT 1
+        FROM reservations
+        WHERE table_id = NEW.table_id
+          AND reservation_time > v_time - INTERVAL 360 MINUTE
+          AND reservation_time < v_end
+          AND end_time > v_time
+          AND status = 'CONFIRMED'
+          AND reservation_id <> NEW.reservation_id
+    ) OR EXISTS (
+        SELECT 1
+        FROM reservation_tables rt
+        JOIN reservations r ON r.reservation_id = rt.reservation_id
+        WHERE rt.table_id = NEW.table_id
+          AND r.reservation_time > v_time - INTERVAL 360 MINUTE
+          AND r.reservation_time < v_end
+          AND r.end_time > v_time
+          AND r.status = 'CONFIRMED'
+          AND r.reservation_id <> NEW.reservation_id
+    )) THEN
         SIGNAL SQLSTATE '45000'
         SET MESSAGE_TEXT = 'Table is already booked for this time slot';
     END IF;
@@ -264,6 +577,8 @@ DELIMITER ;
 CREATE INDEX idx_reservation_lookup ON reservations(customer_id, status, reservation_time);
 CREATE INDEX idx_table_availability ON tables(status, capacity);
 CREATE INDEX idx_time_range ON reservations(reservation_time, status, table_id);
+CREATE INDEX idx_table_time ON reservations(table_id, reservation_time);
+CREATE INDEX idx_status_time ON reservations(status, reservation_time);
 
 -- Full-text search on special requests (optional)
 -- ALTER TABLE reservations ADD FULLTEXT INDEX idx_special_requests(special_requests);
@@ -272,20 +587,25 @@ CREATE INDEX idx_time_range ON reservations(reservation_time, status, table_id);
 -- CLEANUP AND MAINTENANCE
 -- ==========================================
 
--- Procedure to archive old reservations
-DELIMITER //
-CREATE PROCEDURE ArchiveOldReservations(IN p_days_old INT)
-BEGIN
-    -- Move old completed/cancelled reservations to archive table
-    -- (Archive table creation omitted for brevity)
-    
-    DELETE FROM reservations
-    WHERE status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW')
-      AND reservation_time < DATE_SUB(NOW(), INTERVAL p_days_old DAY);
-      
-    SELECT ROW_COUNT() as archived_count;
-END //
-DELIMITER ;
+-- Old reservations are archived by the application (ReservationArchiver,
+-- POST /api/admin/archive or restaurant.archive.daysOld): finished rows are
+-- copied to reservations_archive and deleted in small keyset-ordered chunks,
+-- never with one unbounded DELETE.
+
+-- Optional: partition the live table by month as well, so a month whose
+-- rows have all been archived can be emptied instantly with
+-- ALTER TABLE reservations TRUNCATE PARTITION p202401. InnoDB does not allow
+-- foreign keys on partitioned tables, so the keys from reservation_tables and
+-- waitlist (and reservations' own) must be dropped first; the application and
+-- the prevent_double_booking triggers do not depend on them.
+-- ALTER TABLE reservations
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (reservation_id, reservation_time)
+--     PARTITION BY RANGE (TO_DAYS(reservation_time)) (
+--         PARTITION p_old VALUES LESS THAN (TO_DAYS('2024-01-01')),
+--         PARTITION p202401 VALUES LESS THAN (TO_DAYS('2024-02-01')),
+--         -- ... one per month ...
+--         PARTITION p_future VALUES LESS THAN MAXVALUE
+--     );
 
 -- Event to automatically update table status
 DELIMITER //